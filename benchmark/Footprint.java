@@ -0,0 +1,550 @@
+package benchmark;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.function.IntFunction;
+import java.util.function.ToLongFunction;
+
+import org.openjdk.jol.info.GraphLayout;
+
+import binary.BinaryNumber;
+import binary.CompressedBinaryNumber;
+import doublelinkedlist.IDLList;
+import doublelinkedlist.IntIDLList;
+import doublelinkedlist.UnrolledIDLList;
+import huffman.HuffmanTree;
+import notes.heaps.Heap;
+import notes.lists.MyList;
+import notes.lists.SLL;
+import notes.tables.HashtableBST;
+import notes.tables.HashtableOpen;
+import notes.tables.Map;
+import notes.trees.BST;
+import treaps.Treap;
+
+/**
+ * Reports how many bytes each element of a structure retains and how many
+ * bytes each operation allocates, and checks both against a stored baseline.
+ *
+ * Retained size is the total size of the object graph reachable from a filled
+ * structure, as laid out by the running JVM and measured by JOL. The empty
+ * structure is subtracted and the rest divided by the number of elements, so
+ * boxed keys and per-node overhead both count. If JOL cannot walk the graph,
+ * the growth of the used heap across a full collection is reported instead,
+ * which is noisier. Allocation per operation comes from the per-thread counter
+ * of the JVM.
+ *
+ * Usage: <code>gradle footprint -Pfootprint='[size=100000] [filter=IDLList]
+ * [baseline=footprint.properties] [record] [tolerance=0.10]'</code>. With
+ * <code>record</code> the baseline file is written; otherwise every metric is
+ * compared to it and the run exits with status 1 if any grew by more than the
+ * tolerance, or if there is no baseline.
+ *
+ * A structure that throws is recorded as <code>name.failed</code> with the
+ * exception's name, which is the list of failures the gate accepts. Any other
+ * failure, and any baseline metric of a selected structure that the run did not
+ * measure, also counts as a regression.
+ */
+public class Footprint {
+
+    /**
+     * How one structure is filled and what to measure on it.
+     */
+    static class Subject {
+        final String name;
+        final IntFunction<Object> fill;
+        final java.util.Map<String, ToLongFunction<Object>> operations = new LinkedHashMap<>();
+        // false for structures whose size does not follow the number of elements
+        boolean grows = true;
+
+        Subject(String name, IntFunction<Object> fill) {
+            this.name = name;
+            this.fill = fill;
+        }
+
+        /**
+         * Marks a structure whose size is bounded whatever the input, so only its
+         * operations are measured.
+         */
+        Subject bounded() {
+            grows = false;
+            return this;
+        }
+
+        /**
+         * Adds an operation, run on a filled structure, that returns how many
+         * times it did its work.
+         */
+        Subject operation(String name, ToLongFunction<Object> operation) {
+            operations.put(name, operation);
+            return this;
+        }
+    }
+
+    // Fixed keys so that every run measures the same shapes
+    private static int[] keys(int n) {
+        int[] keys = new int[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = i;
+        }
+        Random random = new Random(0x5EED);
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int t = keys[i];
+            keys[i] = keys[j];
+            keys[j] = t;
+        }
+        return keys;
+    }
+
+    private static String text(int n) {
+        Random random = new Random(0x5EED);
+        char[] text = new char[n];
+        for (int i = 0; i < n; i++) {
+            // skewed towards the start of the alphabet, like English text
+            text[i] = (char) ('a' + Math.min(25, (int) (-Math.log(1 - random.nextDouble()) * 5)));
+        }
+        return new String(text);
+    }
+
+    private static final int OPERATIONS = 10_000;
+
+    /**
+     * Returns every structure to measure.
+     */
+    @SuppressWarnings("unchecked")
+    static List<Subject> subjects() {
+        List<Subject> subjects = new ArrayList<>();
+        subjects.add(new Subject("IDLList", n -> {
+            IDLList<Integer> list = new IDLList<>();
+            for (int k : keys(n)) {
+                list.append(k);
+            }
+            return list;
+        }).operation("append", o -> {
+            IDLList<Integer> list = (IDLList<Integer>) o;
+            for (int i = 0; i < OPERATIONS; i++) {
+                list.append(i);
+            }
+            return OPERATIONS;
+        }).operation("get", o -> {
+            IDLList<Integer> list = (IDLList<Integer>) o;
+            for (int i = 0; i < OPERATIONS; i++) {
+                list.get(i);
+            }
+            return OPERATIONS;
+        }));
+        subjects.add(new Subject("IDLList.RING", n -> {
+            IDLList<Integer> list = new IDLList<>(IDLList.Index.RING);
+            for (int k : keys(n)) {
+                list.append(k);
+            }
+            return list;
+        }).operation("append", o -> {
+            IDLList<Integer> list = (IDLList<Integer>) o;
+            for (int i = 0; i < OPERATIONS; i++) {
+                list.append(i);
+            }
+            return OPERATIONS;
+        }));
+        subjects.add(new Subject("UnrolledIDLList", n -> {
+            UnrolledIDLList<Integer> list = new UnrolledIDLList<>();
+            for (int k : keys(n)) {
+                list.append(k);
+            }
+            return list;
+        }).operation("append", o -> {
+            UnrolledIDLList<Integer> list = (UnrolledIDLList<Integer>) o;
+            for (int i = 0; i < OPERATIONS; i++) {
+                list.append(i);
+            }
+            return OPERATIONS;
+        }).operation("get", o -> {
+            UnrolledIDLList<Integer> list = (UnrolledIDLList<Integer>) o;
+            for (int i = 0; i < OPERATIONS; i++) {
+                list.get(i);
+            }
+            return OPERATIONS;
+        }));
+        subjects.add(new Subject("IntIDLList", n -> {
+            IntIDLList list = new IntIDLList();
+            for (int k : keys(n)) {
+                list.append(k);
+            }
+            return list;
+        }).operation("append", o -> {
+            IntIDLList list = (IntIDLList) o;
+            for (int i = 0; i < OPERATIONS; i++) {
+                list.append(i);
+            }
+            return OPERATIONS;
+        }).operation("get", o -> {
+            IntIDLList list = (IntIDLList) o;
+            for (int i = 0; i < OPERATIONS; i++) {
+                list.get(i);
+            }
+            return OPERATIONS;
+        }));
+        subjects.add(new Subject("Treap", n -> {
+            Treap<Integer> treap = new Treap<>(42);
+            for (int k : keys(n)) {
+                treap.add(k);
+            }
+            return treap;
+        }).operation("add", o -> {
+            Treap<Integer> treap = (Treap<Integer>) o;
+            for (int i = 0; i < OPERATIONS; i++) {
+                treap.add(-1 - i);
+            }
+            return OPERATIONS;
+        }).operation("find", o -> {
+            Treap<Integer> treap = (Treap<Integer>) o;
+            for (int i = 0; i < OPERATIONS; i++) {
+                treap.find(i);
+            }
+            return OPERATIONS;
+        }));
+        // the tree has one leaf per distinct character, however long the text
+        subjects.add(new Subject("HuffmanTree", n -> new HuffmanTree(text(n))).bounded().operation("encode", o -> {
+            String text = text(OPERATIONS);
+            ((HuffmanTree) o).encode(text);
+            return text.length();
+        }).operation("efficientEncode", o -> {
+            String text = text(OPERATIONS);
+            ((HuffmanTree) o).efficientEncode(text);
+            return text.length();
+        }).operation("encodeBits", o -> {
+            String text = text(OPERATIONS);
+            ((HuffmanTree) o).encodeBits(text);
+            return text.length();
+        }));
+        subjects.add(new Subject("HashtableOpen", n -> {
+            HashtableOpen<Integer, Integer> table = new HashtableOpen<>();
+            for (int k : keys(n)) {
+                table.put(k, k);
+            }
+            return table;
+        }).operation("get", o -> {
+            HashtableOpen<Integer, Integer> table = (HashtableOpen<Integer, Integer>) o;
+            for (int i = 0; i < OPERATIONS; i++) {
+                table.get(i);
+            }
+            return OPERATIONS;
+        }));
+        subjects.add(new Subject("HashtableBST", n -> {
+            HashtableBST<Integer, Integer> table = new HashtableBST<>();
+            for (int k : keys(n)) {
+                table.put(k, k);
+            }
+            return table;
+        }));
+        subjects.add(new Subject("Map", n -> {
+            Map<Integer, Integer> map = new Map<>();
+            for (int k : keys(n)) {
+                map.add(k, k);
+            }
+            return map;
+        }));
+        subjects.add(new Subject("Heap", n -> {
+            Heap<Integer> heap = new Heap<>(n);
+            for (int k : keys(n)) {
+                heap.add(k);
+            }
+            return heap;
+        }).operation("add", o -> {
+            Heap<Integer> heap = (Heap<Integer>) o;
+            for (int i = 0; i < OPERATIONS; i++) {
+                heap.add(i);
+            }
+            return OPERATIONS;
+        }));
+        subjects.add(new Subject("BST", n -> {
+            BST<Integer> tree = new BST<>();
+            for (int k : keys(n)) {
+                tree.add(k);
+            }
+            return tree;
+        }).operation("find", o -> {
+            BST<Integer> tree = (BST<Integer>) o;
+            for (int i = 0; i < OPERATIONS; i++) {
+                tree.find(i);
+            }
+            return OPERATIONS;
+        }));
+        subjects.add(new Subject("SLL", n -> {
+            SLL<Integer> list = new SLL<>();
+            for (int k : keys(n)) {
+                list.addFirst(k);
+            }
+            return list;
+        }).operation("addFirst", o -> {
+            SLL<Integer> list = (SLL<Integer>) o;
+            for (int i = 0; i < OPERATIONS; i++) {
+                list.addFirst(i);
+            }
+            return OPERATIONS;
+        }));
+        subjects.add(new Subject("MyList", n -> {
+            MyList<Integer> list = new MyList<>();
+            for (int k : keys(n)) {
+                list.add(k);
+            }
+            return list;
+        }).operation("add", o -> {
+            MyList<Integer> list = (MyList<Integer>) o;
+            for (int i = 0; i < OPERATIONS; i++) {
+                list.add(i);
+            }
+            return OPERATIONS;
+        }));
+        subjects.add(new Subject("BinaryNumber", n -> {
+            BinaryNumber b = new BinaryNumber(Math.max(1, n));
+            b.add(BinaryNumber.valueOf(n));
+            return b;
+        }).operation("add", o -> {
+            BinaryNumber b = (BinaryNumber) o;
+            BinaryNumber one = BinaryNumber.valueOf(1);
+            for (int i = 0; i < OPERATIONS; i++) {
+                b.add(one);
+            }
+            return OPERATIONS;
+        }));
+        subjects.add(new Subject("CompressedBinaryNumber", n -> {
+            CompressedBinaryNumber c = new CompressedBinaryNumber(Math.max(1, n));
+            for (int k : keys(n / 64)) {
+                c.setDigit(k * 64, 1);
+            }
+            return c;
+        }));
+        return subjects;
+    }
+
+    /**
+     * Bytes retained per element, and how they were measured.
+     */
+    static class Retained {
+        final double bytes;
+        final boolean walked;
+
+        Retained(double bytes, boolean walked) {
+            this.bytes = bytes;
+            this.walked = walked;
+        }
+    }
+
+    /**
+     * Returns the bytes each element of a filled structure retains.
+     *
+     * @param subject the structure
+     * @param size    the number of elements
+     * @return bytes per element
+     */
+    static Retained retained(Subject subject, int size) {
+        Object empty = subject.fill.apply(0);
+        try {
+            long base = GraphLayout.parseInstance(empty).totalSize();
+            long full = GraphLayout.parseInstance(subject.fill.apply(size)).totalSize();
+            return new Retained((double) (full - base) / size, true);
+        } catch (RuntimeException e) {
+            // JOL could not read part of the graph
+            long before = usedHeap();
+            Object full = subject.fill.apply(size);
+            long after = usedHeap();
+            Reference.reachabilityFence(full);
+            Reference.reachabilityFence(empty);
+            return new Retained((double) (after - before) / size, false);
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // a single collection can leave garbage behind, keep the lowest reading
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    /**
+     * Returns the bytes allocated so far by the current thread, or 0 if the JVM
+     * does not track them.
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the bytes one call of an operation allocates.
+     */
+    static double allocated(Subject subject, ToLongFunction<Object> operation, int size) {
+        // a first round on a separate copy warms up the code
+        operation.applyAsLong(subject.fill.apply(size));
+        Object o = subject.fill.apply(size);
+        long before = allocatedBytes();
+        long count = operation.applyAsLong(o);
+        long after = allocatedBytes();
+        return (double) (after - before) / count;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int size = 100_000;
+        String filter = "";
+        String baselineFile = "footprint.properties";
+        boolean record = false;
+        double tolerance = 0.10;
+
+        for (String arg : args) {
+            String[] kv = arg.split("=", 2);
+            switch (kv[0]) {
+            case "size":
+                size = Integer.parseInt(kv[1]);
+                break;
+            case "filter":
+                filter = kv[1];
+                break;
+            case "baseline":
+                baselineFile = kv[1];
+                break;
+            case "record":
+                record = true;
+                break;
+            case "tolerance":
+                tolerance = Double.parseDouble(kv[1]);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+
+        Properties baseline = new Properties();
+        if (!record) {
+            try (InputStream in = new FileInputStream(baselineFile)) {
+                baseline.load(in);
+            } catch (IOException e) {
+                System.out.println("No baseline at " + baselineFile + "; run with record to write one.");
+                System.exit(1);
+            }
+        }
+
+        Properties measured = new Properties();
+        List<String> regressions = new ArrayList<>();
+        PrintStream out = System.out;
+        List<Subject> subjects = subjects();
+        for (Subject subject : subjects) {
+            if (!subject.name.contains(filter)) {
+                continue;
+            }
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            try {
+                if (subject.grows) {
+                    Retained r = retained(subject, size);
+                    report(out, subject.name + ".retained", r.bytes, r.walked ? "B/element" : "B/element (heap)",
+                            baseline, tolerance, measured, regressions);
+                }
+                for (java.util.Map.Entry<String, ToLongFunction<Object>> e : subject.operations.entrySet()) {
+                    report(out, subject.name + "." + e.getKey() + ".allocated",
+                            allocated(subject, e.getValue(), size), "B/op", baseline, tolerance, measured,
+                            regressions);
+                }
+            } catch (RuntimeException | StackOverflowError e) {
+                String name = subject.name + ".failed";
+                String error = e.getClass().getSimpleName();
+                measured.setProperty(name, error);
+                String status = "";
+                if (!record) {
+                    if (error.equals(baseline.getProperty(name))) {
+                        status = "expected";
+                    } else {
+                        status = "REGRESSED";
+                        regressions.add(name);
+                    }
+                }
+                out.printf(Locale.ROOT, "%-40s %12s %-18s %s%n", subject.name, "failed", error, status);
+            } finally {
+                System.setOut(out);
+            }
+        }
+
+        if (!record) {
+            for (String name : new TreeSet<>(baseline.stringPropertyNames())) {
+                String owner = subjectOf(name, subjects);
+                if ((owner != null && !owner.contains(filter)) || measured.getProperty(name) != null) {
+                    continue;
+                }
+                if (name.endsWith(".failed")) {
+                    out.printf(Locale.ROOT, "%-40s no longer fails; record a new baseline%n", owner);
+                } else {
+                    out.printf(Locale.ROOT, "%-40s %12s %-18s REGRESSED (baseline %s)%n", name, "missing", "",
+                            baseline.getProperty(name));
+                    regressions.add(name);
+                }
+            }
+        }
+
+        if (record) {
+            // sorted and undated, so a new baseline diffs cleanly against the old one
+            try (PrintStream o = new PrintStream(new FileOutputStream(baselineFile), false, "UTF-8")) {
+                o.println("# footprint baseline, size=" + size);
+                for (String name : new TreeSet<>(measured.stringPropertyNames())) {
+                    o.println(name + "=" + measured.getProperty(name));
+                }
+            }
+            System.out.println("Baseline written to " + baselineFile);
+        } else if (!regressions.isEmpty()) {
+            System.out.println("Regressions: " + String.join(", ", regressions));
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Returns the name of the subject a metric belongs to, or null if no subject
+     * has that name any more. The longest match wins, so IDLList.RING metrics do
+     * not belong to IDLList.
+     */
+    private static String subjectOf(String metric, List<Subject> subjects) {
+        String owner = null;
+        for (Subject subject : subjects) {
+            if (metric.startsWith(subject.name + ".") && (owner == null || subject.name.length() > owner.length())) {
+                owner = subject.name;
+            }
+        }
+        return owner;
+    }
+
+    private static void report(PrintStream out, String name, double value, String unit,
+            Properties baseline, double tolerance, Properties measured, List<String> regressions) {
+        measured.setProperty(name, String.format(Locale.ROOT, "%.2f", value));
+        String status = "";
+        String expected = baseline.getProperty(name);
+        if (expected != null) {
+            double limit = Double.parseDouble(expected) * (1 + tolerance);
+            // a byte of slack so that metrics at or near zero do not flap
+            if (value > limit + 1) {
+                status = "REGRESSED (baseline " + expected + ")";
+                regressions.add(name);
+            } else {
+                status = "ok (baseline " + expected + ")";
+            }
+        }
+        out.printf(Locale.ROOT, "%-40s %12.2f %-18s %s%n", name, value, unit, status);
+    }
+}
@@ -0,0 +1,154 @@
+package benchmark;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of latencies in nanoseconds with a fixed relative error, laid
+ * out like an HdrHistogram.
+ *
+ * Values below 2^precision get one bucket each. Above that every power of two
+ * is split into 2^(precision - 1) equal buckets, so a value is never reported
+ * more than 2^(1 - precision) off, whatever its size. With the default precision
+ * of 8 that is under 1%, in about 7K buckets for the whole range of a long.
+ * Recording is lock-free and safe from any number of threads.
+ */
+public class LatencyHistogram {
+
+    private final int precision;
+    // half the number of buckets per power of two
+    private final int half;
+    private final AtomicLongArray counts;
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Creates a histogram with under 1% error.
+     */
+    public LatencyHistogram() {
+        this(8);
+    }
+
+    /**
+     * Creates a histogram.
+     *
+     * @param precision bits kept of each value, from 2 to 16
+     */
+    public LatencyHistogram(int precision) {
+        if (precision < 2 || precision > 16) {
+            throw new IllegalArgumentException("precision must be between 2 and 16.");
+        }
+        this.precision = precision;
+        this.half = 1 << (precision - 1);
+        this.counts = new AtomicLongArray(index(Long.MAX_VALUE) + 1);
+    }
+
+    /**
+     * Returns the bucket of a value.
+     */
+    int index(long value) {
+        int exponent = Math.max(0, 64 - Long.numberOfLeadingZeros(value) - precision);
+        return exponent * half + (int) (value >>> exponent);
+    }
+
+    /**
+     * Returns the largest value that falls in a bucket.
+     */
+    long highestValue(int index) {
+        if (index < 2 * half) {
+            return index;
+        }
+        int exponent = index / half - 1;
+        long mantissa = index - (long) exponent * half;
+        return ((mantissa + 1) << exponent) - 1;
+    }
+
+    /**
+     * Records one latency.
+     *
+     * @param nanos the latency, negative values count as 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(index(value));
+        total.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Adds every value recorded in another histogram of the same precision.
+     *
+     * @param other the histogram to add
+     */
+    public void add(LatencyHistogram other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Histograms have different precisions.");
+        }
+        for (int i = 0; i < counts.length(); i++) {
+            long c = other.counts.get(i);
+            if (c != 0) {
+                counts.addAndGet(i, c);
+            }
+        }
+        total.add(other.total.sum());
+        sum.add(other.sum.sum());
+        max.accumulate(other.max.get());
+    }
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return the count
+     */
+    public long count() {
+        return total.sum();
+    }
+
+    /**
+     * Returns the largest recorded value, exactly.
+     *
+     * @return the maximum, or 0 if nothing was recorded
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * Returns the mean of the recorded values, exactly.
+     *
+     * @return the mean, or 0 if nothing was recorded
+     */
+    public double mean() {
+        long n = count();
+        return (n == 0) ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * Returns the value below or at which the given percentage of recorded
+     * values fall, as the top of its bucket.
+     *
+     * @param percentile from 0 to 100
+     * @return the value, or 0 if nothing was recorded
+     */
+    public long percentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100.");
+        }
+        long n = count();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestValue(i), max());
+            }
+        }
+        return max();
+    }
+}
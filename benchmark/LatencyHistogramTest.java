@@ -0,0 +1,110 @@
+package benchmark;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBucketsTileTheRange() {
+        for (int precision : new int[] { 2, 8, 16 }) {
+            LatencyHistogram h = new LatencyHistogram(precision);
+            int last = h.index(Long.MAX_VALUE);
+            assertEquals(0, h.index(0));
+            assertEquals(Long.MAX_VALUE, h.highestValue(last));
+            for (int i = 0; i < last; i++) {
+                // every bucket ends where the next one starts
+                assertEquals(i, h.index(h.highestValue(i)));
+                assertEquals(i + 1, h.index(h.highestValue(i) + 1));
+            }
+        }
+    }
+
+    @Test
+    public void testRelativeError() {
+        Random random = new Random(284);
+        for (int precision : new int[] { 2, 8, 16 }) {
+            LatencyHistogram h = new LatencyHistogram(precision);
+            double bound = Math.pow(2, 1 - precision);
+            for (int i = 0; i < 100_000; i++) {
+                // spread the values over every power of two
+                long value = (random.nextLong() >>> 1) >>> random.nextInt(63);
+                long highest = h.highestValue(h.index(value));
+                assertTrue(value + " in " + highest, highest >= value);
+                assertTrue(value + " in " + highest, highest - value <= value * bound);
+            }
+            for (long value = 0; value < 1 << precision; value++) {
+                assertEquals(value, h.highestValue(h.index(value)));
+            }
+        }
+    }
+
+    @Test
+    public void testPercentile() {
+        LatencyHistogram h = new LatencyHistogram();
+        assertEquals(0, h.percentile(50));
+        for (long v = 1; v <= 10_000; v++) {
+            h.record(v);
+        }
+        assertEquals(10_000, h.count());
+        assertEquals(10_000, h.max());
+        assertEquals(5000.5, h.mean(), 1e-9);
+        assertEquals(1, h.percentile(0));
+        assertEquals(10_000, h.percentile(100));
+        for (double p : new double[] { 1, 25, 50, 90, 99, 99.9 }) {
+            long exact = (long) Math.ceil(p / 100 * 10_000);
+            long reported = h.percentile(p);
+            assertTrue(p + ": " + reported, reported >= exact && reported <= exact * 1.01);
+        }
+
+        try {
+            h.percentile(100.5);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testRecordNegativeAndLarge() {
+        LatencyHistogram h = new LatencyHistogram();
+        h.record(-5);
+        h.record(Long.MAX_VALUE);
+        assertEquals(2, h.count());
+        assertEquals(0, h.percentile(50));
+        assertEquals(Long.MAX_VALUE, h.percentile(100));
+        assertEquals(Long.MAX_VALUE, h.max());
+    }
+
+    @Test
+    public void testAdd() {
+        Random random = new Random(7);
+        LatencyHistogram a = new LatencyHistogram();
+        LatencyHistogram b = new LatencyHistogram();
+        LatencyHistogram all = new LatencyHistogram();
+        for (int i = 0; i < 10_000; i++) {
+            long value = random.nextInt(1_000_000);
+            (i % 3 == 0 ? a : b).record(value);
+            all.record(value);
+        }
+        a.add(b);
+        assertEquals(all.count(), a.count());
+        assertEquals(all.max(), a.max());
+        assertEquals(all.mean(), a.mean(), 1e-9);
+        for (double p : new double[] { 0, 10, 50, 99, 99.9, 100 }) {
+            assertEquals(all.percentile(p), a.percentile(p));
+        }
+
+        a.add(new LatencyHistogram());
+        assertEquals(all.count(), a.count());
+
+        try {
+            a.add(new LatencyHistogram(4));
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+    }
+}
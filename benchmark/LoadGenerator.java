@@ -0,0 +1,380 @@
+package benchmark;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntFunction;
+
+import doublelinkedlist.ConcurrentIDLList;
+import doublelinkedlist.IDLList;
+import notes.heaps.Heap;
+import notes.tables.HashtableOpen;
+import treaps.Treap;
+
+/**
+ * Drives a structure from many concurrent clients with a mix of reads and
+ * writes and reports the latency of each kind of operation at p50, p99 and
+ * p99.9.
+ *
+ * Every client runs on its own thread: a virtual thread when the JVM has them,
+ * a platform thread otherwise. Clients loop until the
+ * deadline, each picking a random key and a read or a write by the configured
+ * mix. The latency of an operation includes any time spent waiting for the
+ * structure, so contention shows up in the tail. The structures here are not
+ * thread-safe, and each is guarded by a single lock. Clients send the next
+ * request as soon as the previous one returns, so a stall delays the requests
+ * behind it instead of being recorded against them.
+ *
+ * Usage: <code>java benchmark.LoadGenerator [target=Treap] [clients=1000]
+ * [reads=0.9] [keys=100000] [seconds=10] [csv]</code>
+ */
+public class LoadGenerator {
+
+    /**
+     * A structure under load. Implementations must be safe to call from any
+     * number of threads.
+     */
+    public interface Target {
+        /**
+         * Reads the element for a key.
+         */
+        void read(int key);
+
+        /**
+         * Changes the structure for a key. Over time writes should leave the
+         * size about where it started.
+         */
+        void write(int key);
+    }
+
+    /**
+     * Guards a target that is not thread-safe with a lock. A lock instead of
+     * synchronized keeps virtual threads from pinning their carrier while they
+     * wait.
+     */
+    static class Locked implements Target {
+        private final Target target;
+        private final ReentrantLock lock = new ReentrantLock();
+
+        Locked(Target target) {
+            this.target = target;
+        }
+
+        public void read(int key) {
+            lock.lock();
+            try {
+                target.read(key);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public void write(int key) {
+            lock.lock();
+            try {
+                target.write(key);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns the targets by name. Each factory builds a fresh structure
+     * holding the given number of keys.
+     *
+     * @return the targets
+     */
+    static java.util.Map<String, IntFunction<Target>> targets() {
+        java.util.Map<String, IntFunction<Target>> targets = new LinkedHashMap<>();
+        targets.put("Treap", keys -> {
+            Treap<Integer> treap = new Treap<>(42);
+            for (int i = 0; i < keys; i += 2) {
+                treap.add(i);
+            }
+            return new Locked(new Target() {
+                public void read(int key) {
+                    treap.find(key);
+                }
+
+                public void write(int key) {
+                    if (!treap.add(key)) {
+                        treap.delete(key);
+                    }
+                }
+            });
+        });
+        targets.put("HashtableOpen", keys -> {
+            HashtableOpen<Integer, Integer> table = new HashtableOpen<>();
+            for (int i = 0; i < keys; i += 2) {
+                table.put(i, i);
+            }
+            return new Locked(new Target() {
+                public void read(int key) {
+                    table.get(key);
+                }
+
+                public void write(int key) {
+                    if (table.get(key) == null) {
+                        table.put(key, key);
+                    } else {
+                        table.remove(key);
+                    }
+                }
+            });
+        });
+        targets.put("IDLList", keys -> {
+            IDLList<Integer> list = new IDLList<>();
+            for (int i = 0; i < keys; i++) {
+                list.append(i);
+            }
+            return new Locked(new Target() {
+                public void read(int key) {
+                    if (list.size() > 0) {
+                        list.get(key % list.size());
+                    }
+                }
+
+                public void write(int key) {
+                    if ((key & 1) == 0 || list.size() == 0) {
+                        list.append(key);
+                    } else {
+                        list.removeLast();
+                    }
+                }
+            });
+        });
+        targets.put("ConcurrentIDLList", keys -> {
+            ConcurrentIDLList<Integer> list = new ConcurrentIDLList<>();
+            for (int i = 0; i < keys; i++) {
+                list.append(i);
+            }
+            // thread-safe on its own, so no lock; reads touch the ends only
+            // because get(index) walks the list
+            return new Target() {
+                public void read(int key) {
+                    if ((key & 1) == 0) {
+                        list.getHead();
+                    } else {
+                        list.getLast();
+                    }
+                }
+
+                public void write(int key) {
+                    if ((key & 1) == 0) {
+                        list.append(key);
+                    } else {
+                        list.poll();
+                    }
+                }
+            };
+        });
+        targets.put("Heap", keys -> {
+            Heap<Integer> heap = new Heap<>(keys);
+            for (int i = 0; i < keys; i++) {
+                heap.add(i);
+            }
+            return new Locked(new Target() {
+                public void read(int key) {
+                    heap.top();
+                }
+
+                public void write(int key) {
+                    if ((key & 1) == 0) {
+                        heap.add(key);
+                    } else {
+                        heap.remove();
+                    }
+                }
+            });
+        });
+        return targets;
+    }
+
+    /**
+     * Returns an executor that runs each task on a new virtual thread, or null
+     * if the JVM has no virtual threads.
+     *
+     * @return the executor or null
+     */
+    static ExecutorService virtualThreads() {
+        try {
+            Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) m.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The latencies and errors of one kind of operation.
+     */
+    static class Operation {
+        final String name;
+        final LatencyHistogram latencies = new LatencyHistogram();
+        final LongAdder errors = new LongAdder();
+
+        Operation(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * Runs the load and returns the read and write statistics.
+     *
+     * @param target  the structure
+     * @param clients concurrent clients
+     * @param reads   fraction of operations that are reads, from 0 to 1
+     * @param keys    keys are drawn from 0 to keys - 1
+     * @param nanos   how long to run
+     * @return {reads, writes}
+     * @throws InterruptedException if interrupted while waiting for clients
+     * @throws IllegalStateException if the clients do not stop within a minute
+     *                               of the deadline
+     * @throws Error                 the first Error thrown by the target, which
+     *                               would otherwise end its client silently
+     */
+    static Operation[] run(Target target, int clients, double reads, int keys, long nanos)
+            throws InterruptedException {
+        Operation read = new Operation("read");
+        Operation write = new Operation("write");
+        ExecutorService executor = virtualThreads();
+        if (executor == null) {
+            // every client has to be running at once, so one thread each
+            executor = Executors.newFixedThreadPool(clients);
+        }
+        CountDownLatch start = new CountDownLatch(1);
+        long[] deadline = new long[1];
+        List<Future<?>> futures = new ArrayList<>(clients);
+        for (int c = 0; c < clients; c++) {
+            futures.add(executor.submit(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline[0]) {
+                    int key = random.nextInt(keys);
+                    Operation op = (random.nextDouble() < reads) ? read : write;
+                    long begin = System.nanoTime();
+                    try {
+                        if (op == read) {
+                            target.read(key);
+                        } else {
+                            target.write(key);
+                        }
+                        op.latencies.record(System.nanoTime() - begin);
+                    } catch (RuntimeException e) {
+                        op.errors.increment();
+                    }
+                }
+            }));
+        }
+        deadline[0] = System.nanoTime() + nanos;
+        start.countDown();
+        executor.shutdown();
+        if (!executor.awaitTermination(nanos + TimeUnit.MINUTES.toNanos(1), TimeUnit.NANOSECONDS)) {
+            executor.shutdownNow();
+            throw new IllegalStateException("Clients still running a minute after the deadline.");
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw new IllegalStateException("A client failed.", e.getCause());
+            }
+        }
+        return new Operation[] { read, write };
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        String name = "Treap";
+        int clients = 1000;
+        double reads = 0.9;
+        int keys = 100_000;
+        double seconds = 10;
+        boolean csv = false;
+
+        for (String arg : args) {
+            String[] kv = arg.split("=", 2);
+            switch (kv[0]) {
+            case "target":
+                name = kv[1];
+                break;
+            case "clients":
+                clients = Integer.parseInt(kv[1]);
+                break;
+            case "reads":
+                reads = Double.parseDouble(kv[1]);
+                break;
+            case "keys":
+                keys = Integer.parseInt(kv[1]);
+                break;
+            case "seconds":
+                seconds = Double.parseDouble(kv[1]);
+                break;
+            case "csv":
+                csv = true;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+
+        IntFunction<Target> factory = targets().get(name);
+        if (factory == null) {
+            throw new IllegalArgumentException("Unknown target: " + name + ", expected one of " + targets().keySet());
+        }
+        Target target;
+        try {
+            target = factory.apply(keys);
+        } catch (RuntimeException e) {
+            System.out.println(name + " failed while loading " + keys + " keys: " + e);
+            System.exit(1);
+            return;
+        }
+        ExecutorService probe = virtualThreads();
+        String threads = (probe == null) ? "platform threads" : "virtual threads";
+        if (probe != null) {
+            probe.shutdown();
+        }
+
+        Operation[] ops = run(target, clients, reads, keys, (long) (seconds * 1e9));
+
+        if (csv) {
+            System.out.println("target,clients,reads,operation,count,errors,p50_us,p99_us,p999_us,max_us,mean_us");
+        } else {
+            System.out.printf(Locale.ROOT, "%s, %d clients on %s, %.0f%% reads, %d keys, %.1f s%n", name, clients,
+                    threads, reads * 100, keys, seconds);
+            System.out.printf(Locale.ROOT, "%-6s %12s %8s %10s %10s %10s %10s %10s%n", "op", "count", "errors",
+                    "p50 us", "p99 us", "p99.9 us", "max us", "mean us");
+        }
+        for (Operation op : ops) {
+            LatencyHistogram h = op.latencies;
+            if (csv) {
+                System.out.printf(Locale.ROOT, "%s,%d,%.2f,%s,%d,%d,%.2f,%.2f,%.2f,%.2f,%.2f%n", name, clients, reads,
+                        op.name, h.count(), op.errors.sum(), h.percentile(50) / 1e3, h.percentile(99) / 1e3,
+                        h.percentile(99.9) / 1e3, h.max() / 1e3, h.mean() / 1e3);
+            } else {
+                System.out.printf(Locale.ROOT, "%-6s %12d %8d %10.2f %10.2f %10.2f %10.2f %10.2f%n", op.name,
+                        h.count(), op.errors.sum(), h.percentile(50) / 1e3, h.percentile(99) / 1e3,
+                        h.percentile(99.9) / 1e3, h.max() / 1e3, h.mean() / 1e3);
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class LoadGeneratorTest {
+
+    @Test
+    public void testRun() throws InterruptedException {
+        LoadGenerator.Operation[] ops = LoadGenerator.run(LoadGenerator.targets().get("Treap").apply(1000), 4,
+                0.5, 1000, TimeUnit.MILLISECONDS.toNanos(100));
+        assertEquals("read", ops[0].name);
+        assertEquals("write", ops[1].name);
+        assertTrue(ops[0].latencies.count() > 0);
+        assertTrue(ops[1].latencies.count() > 0);
+        assertEquals(0, ops[0].errors.sum() + ops[1].errors.sum());
+    }
+
+    @Test
+    public void testErrorsAreRethrown() throws InterruptedException {
+        LoadGenerator.Target failing = new LoadGenerator.Target() {
+            public void read(int key) {
+                throw new IllegalStateException();
+            }
+
+            public void write(int key) {
+                throw new InternalError("write " + key);
+            }
+        };
+        try {
+            LoadGenerator.run(failing, 4, 0.5, 1000, TimeUnit.MILLISECONDS.toNanos(100));
+            fail();
+        } catch (InternalError e) {
+            assertTrue(e.getMessage().startsWith("write "));
+        }
+    }
+}
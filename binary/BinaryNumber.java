@@ -1,5 +1,13 @@
 package binary;
 
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Base64;
+
 /**
  * Binary Number
  * 
@@ -9,9 +17,41 @@ package binary;
 
 public class BinaryNumber {
 
+    // Bits are packed 64 to a word. Digit 0 is the most significant digit, so
+    // digit i lives at bit position (length - 1 - i), counted from the least
+    // significant bit of words[0]. Bits at or above length are always 0, and
+    // words may be longer than the length needs so that add can work in place.
+    //
+    // Shifts do not move any bits. Instead the number is a view of its storage:
+    // the lowest pad bits read as 0 and bit p >= pad reads storage bit
+    // (p - pad + offset). Storage may be shared between views, so anything that
+    // writes to words calls materialize() first. The first operation that needs
+    // all the words of a view lays them out unshifted in storage of its own.
+    private static final int WORD_BITS = 64;
+    private static final int WORD_SHIFT = 6;
+    private static final int WORD_MASK = WORD_BITS - 1;
+
+    // Decimal strings up to this many digits are converted with plain long
+    // arithmetic, longer ones are split in half recursively
+    private static final int DECIMAL_CHUNK = 18;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    // Serialized form: "BNUM", version, length in bits, 4 reserved bytes, then
+    // the words, all little-endian, so the words start 8-byte aligned
+    private static final int MAGIC = 0x4D554E42;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+
+    // Additions at least this many bits wide are split across the common pool
+    private static volatile int parallelAddThreshold = 1 << 22;
+
     // Instance variables
-    private int[] data;
+    private long[] words;
     private int length;
+    private int offset;
+    private int pad;
+    private boolean shared;
+    private RankSelectIndex rankSelect;
 
     // Contructors
     /**
@@ -24,8 +64,7 @@ public class BinaryNumber {
         if (length <= 0) {
             throw new IllegalArgumentException("Invlaid Length: length must be greater than 0.");
         }
-        int[] bn = new int[length];
-        data = bn;
+        this.words = new long[wordsFor(length)];
         this.length = length;
     }
 
@@ -37,23 +76,32 @@ public class BinaryNumber {
      */
     public BinaryNumber(String str) {
         int len = str.length();
-        int[] bn = new int[len];
+        long[] bn = new long[wordsFor(len)];
 
         for (int i = 0; i < len; i++) {
             char c = str.charAt(i);
-            int bit = Character.getNumericValue(c);
-            if (bit == 1) {
-                bn[i] = bit;
-            } else if (bit == 0) {
-                // Do nothing
-            } else {
+            if (c == '1') {
+                int position = len - 1 - i;
+                bn[position >>> WORD_SHIFT] |= 1L << position;
+            } else if (c != '0') {
                 throw new IllegalArgumentException("Invalid bit given '" + c + "'.");
             }
         }
-        this.data = bn;
+        this.words = bn;
         this.length = len;
     }
 
+    /**
+     * Creates a binary number of the given length backed by already packed words.
+     * 
+     * @param words  the packed words, least significant word first
+     * @param length the number of bits
+     */
+    private BinaryNumber(long[] words, int length) {
+        this.words = words;
+        this.length = length;
+    }
+
     // Methods
 
     /**
@@ -66,12 +114,13 @@ public class BinaryNumber {
     }
 
     /**
-     * Gets the integer array representing the BinaryNumber.
+     * Gets the integer array representing the BinaryNumber. The array is unpacked
+     * from the word storage, so changing it does not change the BinaryNumber.
      * 
      * @return data
      */
     public int[] getInnerArray() {
-        return this.data;
+        return toIntArray(readWords(), length);
     }
 
     /**
@@ -81,35 +130,324 @@ public class BinaryNumber {
      * @return bit at index
      */
     public int getDigit(int index) {
-        try {
-            return data[index];
-        } catch (ArrayIndexOutOfBoundsException exception) {
+        if (index < 0 || index >= length) {
             throw new IllegalArgumentException("index is out of bounds");
         }
-
+        int position = length - 1 - index;
+        if (position < pad) {
+            return 0;
+        }
+        position += offset - pad;
+        return (int) (words[position >>> WORD_SHIFT] >>> position) & 1;
     }
 
     /**
      * Returns the decimal representation of a BinaryNumber.
      * 
+     * @throws ArithmeticException if the value does not fit in an int
      * @return decimal of binary number
      */
     public int toDecimal() {
-        int decimal = 0;
-        double power = length - 1;
-        for (int i = 0; i < length; i++) {
-            decimal += data[i] * (int) Math.pow(2.0, power);
-            power--;
+        if (bitLength() > Integer.SIZE - 1) {
+            throw new ArithmeticException("Value does not fit in an int.");
+        }
+        return (int) word(0);
+    }
+
+    /**
+     * Returns the value of a BinaryNumber as a long.
+     * 
+     * @throws ArithmeticException if the value does not fit in a long
+     * @return value of binary number
+     */
+    public long toLong() {
+        if (bitLength() > Long.SIZE - 1) {
+            throw new ArithmeticException("Value does not fit in a long.");
+        }
+        return word(0);
+    }
+
+    /**
+     * Returns the value of a BinaryNumber as a nonnegative BigInteger.
+     * 
+     * @return value of binary number
+     */
+    public BigInteger toBigInteger() {
+        return new BigInteger(1, toByteArray());
+    }
+
+    /**
+     * Returns the bits packed into bytes, most significant byte first. The first
+     * byte is padded with leading zeros when the length is not a multiple of 8.
+     * 
+     * @return big-endian bytes of binary number
+     */
+    public byte[] toByteArray() {
+        long[] words = readWords();
+        byte[] bytes = new byte[(length + 7) >>> 3];
+        for (int j = 0; j < bytes.length; j++) {
+            bytes[bytes.length - 1 - j] = (byte) (words[j >>> 3] >>> ((j & 7) << 3));
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the hexadecimal representation of a BinaryNumber, one digit for
+     * every 4 bits including leading zeros.
+     * 
+     * @return lowercase hexadecimal string
+     */
+    public String toHexString() {
+        long[] words = readWords();
+        char[] result = new char[(length + 3) >>> 2];
+        for (int j = 0; j < result.length; j++) {
+            int nibble = (int) (words[j >>> 4] >>> ((j & 15) << 2)) & 15;
+            result[result.length - 1 - j] = HEX_DIGITS[nibble];
+        }
+        return new String(result);
+    }
+
+    /**
+     * Returns the Base64 encoding of {@link #toByteArray()}.
+     * 
+     * @return Base64 string
+     */
+    public String toBase64() {
+        return Base64.getEncoder().encodeToString(toByteArray());
+    }
+
+    /**
+     * Returns the base 10 representation of a BinaryNumber without leading zeros.
+     * Values wider than a long go through BigInteger, whose conversion splits the
+     * number recursively, so very wide values convert in subquadratic time.
+     * 
+     * @return decimal string
+     */
+    public String toDecimalString() {
+        if (bitLength() <= Long.SIZE - 1) {
+            return Long.toString(word(0));
+        }
+        return toBigInteger().toString();
+    }
+
+    /**
+     * Returns the number of bits up to and including the highest 1 bit.
+     * 
+     * @return the number of significant bits, 0 if the value is zero
+     */
+    public int bitLength() {
+        long[] words = readWords();
+        for (int w = wordsFor(length) - 1; w >= 0; w--) {
+            if (words[w] != 0) {
+                return (w << WORD_SHIFT) + WORD_BITS - Long.numberOfLeadingZeros(words[w]);
+            }
         }
-        return decimal;
+        return 0;
     }
 
     public String toString() {
-        String result = new String();
-        for (int i = 0; i < length; i++) {
-            result += Integer.toString(data[i]);
+        long[] words = readWords();
+        char[] result = new char[length];
+        int i = 0;
+        int topWord = wordsFor(length) - 1;
+        for (int w = topWord; w >= 0; w--) {
+            long word = words[w];
+            int top = (w == topWord) ? ((length - 1) & WORD_MASK) : WORD_MASK;
+            for (int b = top; b >= 0; b--) {
+                result[i++] = (char) ('0' + ((word >>> b) & 1));
+            }
         }
-        return result;
+        return new String(result);
+    }
+
+    /**
+     * Creates a binary number from its digits, most significant digit first.
+     * 
+     * @param digits the '0' and '1' characters
+     * @throws IllegalArgumentException if a character is not a bit
+     * @return binary number with one bit per digit
+     */
+    public static BinaryNumber parseBinary(char[] digits) {
+        int len = digits.length;
+        if (len == 0) {
+            throw new IllegalArgumentException("Invalid Length: no digits given.");
+        }
+        long[] bn = new long[wordsFor(len)];
+        for (int i = 0; i < len; i++) {
+            char c = digits[i];
+            if (c == '1') {
+                int position = len - 1 - i;
+                bn[position >>> WORD_SHIFT] |= 1L << position;
+            } else if (c != '0') {
+                throw new IllegalArgumentException("Invalid bit given '" + c + "'.");
+            }
+        }
+        return new BinaryNumber(bn, len);
+    }
+
+    /**
+     * Creates a binary number from hexadecimal digits, most significant digit
+     * first. The result has 4 bits for every digit.
+     * 
+     * @param digits the hexadecimal characters, in either case
+     * @throws IllegalArgumentException if a character is not a hexadecimal digit
+     * @return binary number
+     */
+    public static BinaryNumber parseHex(char[] digits) {
+        if (digits.length == 0) {
+            throw new IllegalArgumentException("Invalid Length: no digits given.");
+        }
+        int len = digits.length << 2;
+        long[] bn = new long[wordsFor(len)];
+        for (int j = 0; j < digits.length; j++) {
+            char c = digits[digits.length - 1 - j];
+            int nibble = Character.digit(c, 16);
+            if (nibble < 0) {
+                throw new IllegalArgumentException("Invalid hex digit given '" + c + "'.");
+            }
+            bn[j >>> 4] |= (long) nibble << ((j & 15) << 2);
+        }
+        return new BinaryNumber(bn, len);
+    }
+
+    /**
+     * Creates a binary number from decimal digits. The result is exactly as long
+     * as the value needs. Long inputs are split in half and recombined with a
+     * power of ten, so the parse is subquadratic in the number of digits.
+     * 
+     * @param digits the decimal characters, most significant digit first
+     * @throws IllegalArgumentException if a character is not a decimal digit
+     * @return binary number
+     */
+    public static BinaryNumber parseDecimal(char[] digits) {
+        if (digits.length == 0) {
+            throw new IllegalArgumentException("Invalid Length: no digits given.");
+        }
+        if (digits.length <= DECIMAL_CHUNK) {
+            return valueOf(parseDecimalChunk(digits, 0, digits.length));
+        }
+        BigInteger[] powers = new BigInteger[32 - Integer.numberOfLeadingZeros(digits.length)];
+        return valueOf(parseDecimal(digits, 0, digits.length, powers));
+    }
+
+    /**
+     * Parses digits[from, to) by splitting off the low power-of-two many digits.
+     * 
+     * @param digits the decimal characters
+     * @param from   first digit, inclusive
+     * @param to     last digit, exclusive
+     * @param powers cache of 10^(2^k), filled on demand
+     * @return the value of the digits
+     */
+    private static BigInteger parseDecimal(char[] digits, int from, int to, BigInteger[] powers) {
+        int n = to - from;
+        if (n <= DECIMAL_CHUNK) {
+            return BigInteger.valueOf(parseDecimalChunk(digits, from, to));
+        }
+        int k = 31 - Integer.numberOfLeadingZeros(n - 1);
+        int low = 1 << k;
+        BigInteger high = parseDecimal(digits, from, to - low, powers);
+        BigInteger rest = parseDecimal(digits, to - low, to, powers);
+        return high.multiply(tenToTwoToThe(k, powers)).add(rest);
+    }
+
+    /**
+     * Parses at most 18 decimal digits into a long.
+     * 
+     * @param digits the decimal characters
+     * @param from   first digit, inclusive
+     * @param to     last digit, exclusive
+     * @return the value of the digits
+     */
+    private static long parseDecimalChunk(char[] digits, int from, int to) {
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            int d = Character.digit(digits[i], 10);
+            if (d < 0) {
+                throw new IllegalArgumentException("Invalid decimal digit given '" + digits[i] + "'.");
+            }
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    /**
+     * Returns 10^(2^k), squaring the previous cached power when needed.
+     * 
+     * @param k      the exponent of the exponent
+     * @param powers cache of earlier powers
+     * @return 10^(2^k)
+     */
+    private static BigInteger tenToTwoToThe(int k, BigInteger[] powers) {
+        if (powers[k] == null) {
+            powers[k] = (k == 0) ? BigInteger.TEN : tenToTwoToThe(k - 1, powers).pow(2);
+        }
+        return powers[k];
+    }
+
+    /**
+     * Creates a binary number from big-endian bytes. The result has 8 bits for
+     * every byte.
+     * 
+     * @param bytes the bytes, most significant byte first
+     * @return binary number
+     */
+    public static BinaryNumber fromByteArray(byte[] bytes) {
+        if (bytes.length == 0) {
+            throw new IllegalArgumentException("Invalid Length: no bytes given.");
+        }
+        int len = bytes.length << 3;
+        long[] bn = new long[wordsFor(len)];
+        for (int j = 0; j < bytes.length; j++) {
+            bn[j >>> 3] |= (bytes[bytes.length - 1 - j] & 0xFFL) << ((j & 7) << 3);
+        }
+        return new BinaryNumber(bn, len);
+    }
+
+    /**
+     * Creates a binary number from Base64 encoded big-endian bytes, as produced
+     * by {@link #toBase64()}.
+     * 
+     * @param base64 the encoded bytes
+     * @throws IllegalArgumentException if the input is not valid Base64
+     * @return binary number
+     */
+    public static BinaryNumber fromBase64(byte[] base64) {
+        return fromByteArray(Base64.getDecoder().decode(base64));
+    }
+
+    /**
+     * Creates a binary number holding a nonnegative long, exactly as long as the
+     * value needs.
+     * 
+     * @param value the value
+     * @throws IllegalArgumentException if the value is negative
+     * @return binary number
+     */
+    public static BinaryNumber valueOf(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Invalid value: value cannot be less than 0.");
+        }
+        int len = Math.max(1, Long.SIZE - Long.numberOfLeadingZeros(value));
+        return new BinaryNumber(new long[] { value }, len);
+    }
+
+    /**
+     * Creates a binary number holding a nonnegative BigInteger, exactly as long as
+     * the value needs.
+     * 
+     * @param value the value
+     * @throws IllegalArgumentException if the value is negative
+     * @return binary number
+     */
+    public static BinaryNumber valueOf(BigInteger value) {
+        if (value.signum() < 0) {
+            throw new IllegalArgumentException("Invalid value: value cannot be less than 0.");
+        }
+        int len = Math.max(1, value.bitLength());
+        BinaryNumber bytes = fromByteArray(value.toByteArray());
+        long[] bn = (bytes.words.length > wordsFor(len)) ? Arrays.copyOf(bytes.words, wordsFor(len)) : bytes.words;
+        return new BinaryNumber(bn, len);
     }
 
     /**
@@ -120,32 +458,37 @@ public class BinaryNumber {
      * specifies how many digits the BinaryNumber will be shifted, and is only valid
      * when it is nonnegative.
      * 
+     * No bits are moved: the shift only adjusts the view of the storage, so it
+     * takes constant time however long the number is.
+     * 
      * @param direction - direction to shift
      * @param amount    - number of places to shift
      */
     public void bitShift(int direction, int amount) {
         if (amount >= 0) {
-            int[] newData;
+            this.rankSelect = null;
             switch (direction) {
             case -1:
                 // Shift Left
-                newData = new int[amount + this.getLength()];
-                for (int i = 0; i < this.getLength(); i++) {
-                    newData[i] = this.getDigit(i);
-                }
-                this.data = newData;
-                this.length = newData.length;
+                this.pad += amount;
+                this.length += amount;
                 break;
             case 1:
                 // Shift Right
                 if (amount < this.length) {
-                    newData = new int[this.getLength() - amount];
-                    System.arraycopy(data, 0, newData, 0, newData.length);
-                    this.length = newData.length;
-                    this.data = newData;
+                    if (amount <= this.pad) {
+                        this.pad -= amount;
+                    } else {
+                        this.offset += amount - this.pad;
+                        this.pad = 0;
+                    }
+                    this.length -= amount;
                 } else {
                     this.length = 1;
-                    this.data = new int[1];
+                    this.words = new long[1];
+                    this.offset = 0;
+                    this.pad = 0;
+                    this.shared = false;
                 }
                 break;
             default:
@@ -158,71 +501,157 @@ public class BinaryNumber {
     }
 
     /**
-     * Adds a BinaryNumber to the current BinaryNumber.
+     * Returns a shifted copy of this BinaryNumber, as in
+     * {@link #bitShift(int, int)}, in constant time. The copy shares storage with
+     * this number; whichever of them is changed first by add takes its own copy
+     * of the storage at that point.
+     * 
+     * @param direction - direction to shift
+     * @param amount    - number of places to shift
+     * @return the shifted number
+     */
+    public BinaryNumber shifted(int direction, int amount) {
+        BinaryNumber view = new BinaryNumber(words, length);
+        view.offset = offset;
+        view.pad = pad;
+        view.bitShift(direction, amount);
+        if (view.words == words) {
+            view.shared = true;
+            this.shared = true;
+        }
+        return view;
+    }
+
+    /**
+     * Adds a BinaryNumber to the current BinaryNumber. The sum is written into the
+     * current word storage, which grows by at least half when it is too small, so
+     * a BinaryNumber used as a running accumulator stops allocating once it has
+     * reached its final width. Sums at least
+     * {@link #getParallelAddThreshold()} bits wide are computed in parallel.
      * 
      * @param aBinaryNumber to add
      */
     public void add(BinaryNumber aBinaryNumber) {
+        int newLength = Math.max(this.length, aBinaryNumber.length);
+        long[] b = aBinaryNumber.readWords();
+        ensureCapacity(newLength + 1);
+        this.rankSelect = null;
 
-        // Copy aBinaryNumber to prevent cleanup of prepended bits
-        aBinaryNumber = new BinaryNumber(aBinaryNumber.toString());
-        int difference = this.getLength() - aBinaryNumber.getLength();
-
-        if (difference < 0) {
-            this.prepend(-1 * difference);
-        } else if (difference > 0) {
-            aBinaryNumber.prepend(difference);
+        // Add word by word; bits above each length are 0, so the final carry
+        // lands on bit newLength
+        long[] a = this.words;
+        int bWords = wordsFor(aBinaryNumber.length);
+        int last = wordsFor(newLength + 1);
+        if (newLength >= parallelAddThreshold) {
+            ParallelAdd.add(a, b, bWords, last);
+            last = 0;
+        }
+        long carry = 0;
+        for (int i = 0; i < last; i++) {
+            if (i >= bWords && carry == 0) {
+                break;
+            }
+            long x = a[i];
+            long y = (i < bWords) ? b[i] : 0;
+            long s = x + y + carry;
+            carry = ((x & y) | ((x | y) & ~s)) >>> 63;
+            a[i] = s;
         }
 
-        // Add the binary numbers, keep track of carried bit
-        int[] sum = new int[this.getLength()];
-        int carriedBit = 0;
-        for (int i = this.getLength() - 1; i >= 0; i--) {
+        // Keep the most significant carried bit
+        if (((a[newLength >>> WORD_SHIFT] >>> newLength) & 1) == 1) {
+            newLength++;
+        }
+        this.length = newLength;
+    }
 
-            int bit = this.getDigit(i);
-            int aBit = aBinaryNumber.getDigit(i);
+    /**
+     * Gets the width in bits from which add runs on the common ForkJoinPool.
+     * 
+     * @return the threshold
+     */
+    public static int getParallelAddThreshold() {
+        return parallelAddThreshold;
+    }
 
-            // Add the bits, create sum, carry bit
-            switch (bit + aBit + carriedBit) {
-            case 1:
-                sum[i] = 1;
-                carriedBit = 0;
-                continue;
-            case 2:
-                sum[i] = 0;
-                carriedBit = 1;
-                continue;
-            case 3:
-                sum[i] = 1;
-                carriedBit = 1;
-                continue;
-            default:
-                continue;
-            }
+    /**
+     * Sets the width in bits from which add runs on the common ForkJoinPool.
+     * 
+     * @param bits the threshold; Integer.MAX_VALUE keeps every add sequential
+     */
+    public static void setParallelAddThreshold(int bits) {
+        if (bits <= 0) {
+            throw new IllegalArgumentException("Invalid threshold: threshold must be greater than 0.");
         }
+        parallelAddThreshold = bits;
+    }
 
-        this.data = sum;
+    /**
+     * Makes sure the word storage can hold at least <code>bits</code> bits without
+     * reallocating.
+     * 
+     * @param bits the number of bits to reserve room for
+     */
+    public void ensureCapacity(int bits) {
+        materialize();
+        int needed = wordsFor(bits);
+        if (needed > words.length) {
+            int grown = words.length + (words.length >> 1);
+            words = Arrays.copyOf(words, Math.max(needed, grown));
+        }
+    }
 
-        // Add most significant carried bit
-        if (carriedBit == 1) {
-            this.prepend(1);
-            this.data[0] = 1;
+    /**
+     * Releases any word storage beyond what the current length needs.
+     */
+    public void trimToSize() {
+        materialize();
+        if (words.length > wordsFor(length)) {
+            words = Arrays.copyOf(words, wordsFor(length));
         }
+    }
 
+    /**
+     * Multiplies this BinaryNumber by another one. Short operands use schoolbook
+     * multiplication on whole words; once both are longer than a few thousand
+     * bits Karatsuba's method takes over.
+     * 
+     * @param other the number to multiply by
+     * @return a new BinaryNumber as long as both operands together
+     */
+    public BinaryNumber multiply(BinaryNumber other) {
+        int newLength = length + other.length;
+        long[] product = WordArithmetic.multiply(readWords(), other.readWords());
+        return new BinaryNumber(Arrays.copyOf(product, wordsFor(newLength)), newLength);
     }
 
     /**
-     * Prepends a given number of 0's to the beginning of a binary number.
+     * Divides this BinaryNumber by another one.
      * 
-     * @param amount of 0's to add
+     * @param divisor the number to divide by
+     * @throws ArithmeticException if the divisor is zero
+     * @return {quotient, remainder}; the quotient is as long as this number and
+     *         the remainder as long as the divisor
      */
-    private void prepend(int amount) {
-        int[] newData = new int[amount + this.getLength()];
-        for (int i = amount; i < newData.length; i++) {
-            newData[i] = this.getDigit(i - amount);
-        }
-        data = newData;
-        length = newData.length;
+    public BinaryNumber[] divmod(BinaryNumber divisor) {
+        long[][] qr = WordArithmetic.divmod(readWords(), divisor.readWords());
+        BinaryNumber quotient = new BinaryNumber(Arrays.copyOf(qr[0], wordsFor(length)), length);
+        BinaryNumber remainder = new BinaryNumber(Arrays.copyOf(qr[1], wordsFor(divisor.length)),
+                divisor.length);
+        return new BinaryNumber[] { quotient, remainder };
+    }
+
+    /**
+     * Raises this BinaryNumber to a power modulo another one.
+     * 
+     * @param exponent the power
+     * @param modulus  the modulus
+     * @throws ArithmeticException if the modulus is zero
+     * @return a new BinaryNumber as long as the modulus
+     */
+    public BinaryNumber modPow(BinaryNumber exponent, BinaryNumber modulus) {
+        long[] power = WordArithmetic.modPow(readWords(), exponent.readWords(), modulus.readWords());
+        return new BinaryNumber(Arrays.copyOf(power, wordsFor(modulus.length)), modulus.length);
     }
 
     /**
@@ -235,14 +664,7 @@ public class BinaryNumber {
     public static int[] bwor(BinaryNumber bn1, BinaryNumber bn2) {
         // validate input
         if (bn1.getLength() == bn2.getLength()) {
-            // "or" the binary numbers
-            int[] bitwiseOr = new int[bn1.getLength()];
-            for (int i = 0; i < bn1.getLength(); i++) {
-                if (bn1.getDigit(i) == 1 || bn2.getDigit(i) == 1) {
-                    bitwiseOr[i] = 1;
-                }
-            }
-            return bitwiseOr;
+            return bn1.or(bn2).getInnerArray();
         } else {
             throw new IllegalArgumentException("Unequal length: binary numbers are not equal in length.");
         }
@@ -258,16 +680,381 @@ public class BinaryNumber {
     public static int[] bwand(BinaryNumber bn1, BinaryNumber bn2) {
         // validate input
         if (bn1.getLength() == bn2.getLength()) {
-            // "and" the binary numbers
-            int[] bitwiseAnd = new int[bn1.getLength()];
-            for (int i = 0; i < bn1.getLength(); i++) {
-                if (bn1.getDigit(i) == 1 && bn2.getDigit(i) == 1) {
-                    bitwiseAnd[i] = 1;
+            return bn1.and(bn2).getInnerArray();
+        } else {
+            throw new IllegalArgumentException("Binary numbers are not equal in length.");
+        }
+    }
+
+    /**
+     * Returns the bitwise 'or' of this and another BinaryNumber. Numbers of
+     * different lengths are aligned at their least significant digit and the
+     * shorter one is treated as having leading zeros.
+     * 
+     * @param other the number to 'or' with
+     * @return a new BinaryNumber as long as the longer operand
+     */
+    public BinaryNumber or(BinaryNumber other) {
+        BinaryNumber longer = (length >= other.length) ? this : other;
+        int common = wordsFor(Math.min(length, other.length));
+        long[] result = Arrays.copyOf(longer.readWords(), wordsFor(longer.length));
+        BitKernels.or(readWords(), other.readWords(), result, common);
+        return new BinaryNumber(result, longer.length);
+    }
+
+    /**
+     * Returns the bitwise 'and' of this and another BinaryNumber, aligned as in
+     * {@link #or(BinaryNumber)}.
+     * 
+     * @param other the number to 'and' with
+     * @return a new BinaryNumber as long as the longer operand
+     */
+    public BinaryNumber and(BinaryNumber other) {
+        int newLength = Math.max(length, other.length);
+        long[] result = new long[wordsFor(newLength)];
+        BitKernels.and(readWords(), other.readWords(), result, wordsFor(Math.min(length, other.length)));
+        return new BinaryNumber(result, newLength);
+    }
+
+    /**
+     * Returns the bitwise 'exclusive or' of this and another BinaryNumber,
+     * aligned as in {@link #or(BinaryNumber)}.
+     * 
+     * @param other the number to 'xor' with
+     * @return a new BinaryNumber as long as the longer operand
+     */
+    public BinaryNumber xor(BinaryNumber other) {
+        BinaryNumber longer = (length >= other.length) ? this : other;
+        int common = wordsFor(Math.min(length, other.length));
+        long[] result = Arrays.copyOf(longer.readWords(), wordsFor(longer.length));
+        BitKernels.xor(readWords(), other.readWords(), result, common);
+        return new BinaryNumber(result, longer.length);
+    }
+
+    /**
+     * Returns this 'and' the complement of another BinaryNumber, aligned as in
+     * {@link #or(BinaryNumber)}. This clears every bit that is set in other.
+     * 
+     * @param other the bits to clear
+     * @return a new BinaryNumber as long as the longer operand
+     */
+    public BinaryNumber andNot(BinaryNumber other) {
+        int newLength = Math.max(length, other.length);
+        long[] mine = readWords();
+        long[] result = Arrays.copyOf(mine, wordsFor(newLength));
+        BitKernels.andNot(mine, other.readWords(), result, wordsFor(Math.min(length, other.length)));
+        return new BinaryNumber(result, newLength);
+    }
+
+    /**
+     * Returns the complement of every digit of this BinaryNumber.
+     * 
+     * @return a new BinaryNumber of the same length
+     */
+    public BinaryNumber not() {
+        int n = wordsFor(length);
+        long[] result = new long[n];
+        BitKernels.not(readWords(), result, n);
+        result[n - 1] &= -1L >>> (WORD_BITS - 1 - ((length - 1) & WORD_MASK));
+        return new BinaryNumber(result, length);
+    }
+
+    /**
+     * Returns the number of digits that are 1.
+     * 
+     * @return the population count
+     */
+    public long bitCount() {
+        return BitKernels.popCount(readWords(), wordsFor(length));
+    }
+
+    /**
+     * Attaches a rank/select index to this BinaryNumber, making
+     * {@link #rank(int)} constant time and {@link #select(long)} close to it. The
+     * index takes about 5% extra space and is dropped by add and bitShift.
+     */
+    public void buildRankSelectIndex() {
+        if (rankSelect == null) {
+            rankSelect = new RankSelectIndex(readWords(), length);
+        }
+    }
+
+    /**
+     * Returns whether a rank/select index is attached.
+     * 
+     * @return true if {@link #buildRankSelectIndex()} has run since the last change
+     */
+    public boolean hasRankSelectIndex() {
+        return rankSelect != null;
+    }
+
+    /**
+     * Counts the digits that are 1 before a given index. Without an attached
+     * index this scans the words.
+     * 
+     * @param index the first digit not counted, between 0 and the length
+     * @return the number of ones among digits [0, index)
+     */
+    public long rank(int index) {
+        if (index < 0 || index > length) {
+            throw new IllegalArgumentException("index is out of bounds");
+        }
+        // digits [0, index) are the bits at positions [length - index, length)
+        if (rankSelect != null) {
+            return rankSelect.ones() - rankSelect.rank(length - index);
+        }
+        long[] words = readWords();
+        int from = length - index;
+        long count = 0;
+        for (int w = from >>> WORD_SHIFT; w < wordsFor(length); w++) {
+            long word = words[w];
+            if (w == from >>> WORD_SHIFT) {
+                word &= -1L << from;
+            }
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Finds the index of the k-th digit that is 1, counting from 0 at the most
+     * significant end, so that <code>select(rank(i)) == i</code> for every 1 digit
+     * i. Without an attached index this scans the words.
+     * 
+     * @param k the number of ones before the one to find
+     * @throws IllegalArgumentException if there are not more than k ones
+     * @return the digit index
+     */
+    public int select(long k) {
+        if (rankSelect != null) {
+            if (k < 0 || k >= rankSelect.ones()) {
+                throw new IllegalArgumentException("k is out of bounds");
+            }
+            return length - 1 - rankSelect.select(rankSelect.ones() - 1 - k);
+        }
+        if (k < 0) {
+            throw new IllegalArgumentException("k is out of bounds");
+        }
+        long[] words = readWords();
+        for (int w = wordsFor(length) - 1; w >= 0; w--) {
+            long word = words[w];
+            int c = Long.bitCount(word);
+            if (k < c) {
+                for (; k > 0; k--) {
+                    word &= ~Long.highestOneBit(word);
                 }
+                int position = (w << WORD_SHIFT) + WORD_MASK - Long.numberOfLeadingZeros(word);
+                return length - 1 - position;
+            }
+            k -= c;
+        }
+        throw new IllegalArgumentException("k is out of bounds");
+    }
+
+    /**
+     * Returns the number of bytes {@link #writeTo(ByteBuffer)} writes.
+     * 
+     * @return serialized size in bytes
+     */
+    public long serializedSize() {
+        return HEADER_BYTES + 8L * wordsFor(length);
+    }
+
+    /**
+     * Writes a header followed by the packed words, little-endian, at the
+     * buffer's position and advances it. The words go in as one bulk copy.
+     * 
+     * @param buffer the buffer to write to
+     * @throws java.nio.BufferOverflowException if the buffer has too little room
+     */
+    public void writeTo(ByteBuffer buffer) {
+        int n = wordsFor(length);
+        ByteBuffer out = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(MAGIC).putInt(VERSION).putInt(length).putInt(0);
+        out.asLongBuffer().put(readWords(), 0, n);
+        buffer.position(buffer.position() + HEADER_BYTES + 8 * n);
+    }
+
+    /**
+     * Writes the serialized form to a channel such as a FileChannel.
+     * 
+     * @param channel the channel to write to
+     * @throws IOException if the write fails
+     */
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) serializedSize());
+        writeTo(buffer);
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Reads a binary number written by {@link #writeTo(ByteBuffer)} at the
+     * buffer's position and advances it. The words are copied onto the heap; use
+     * {@link MappedBinaryNumber} to read them in place instead.
+     * 
+     * @param buffer the buffer to read from
+     * @throws IllegalArgumentException if the header is invalid or the buffer is
+     *                                  too short
+     * @return binary number
+     */
+    public static BinaryNumber readFrom(ByteBuffer buffer) {
+        ByteBuffer in = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        int len = readHeader(in);
+        int n = wordsFor(len);
+        if (in.remaining() < 8L * n) {
+            throw new IllegalArgumentException("Truncated binary number: expected " + n + " words.");
+        }
+        long[] bn = new long[n];
+        in.asLongBuffer().get(bn);
+        buffer.position(buffer.position() + HEADER_BYTES + 8 * n);
+        return new BinaryNumber(bn, len);
+    }
+
+    /**
+     * Reads and checks the serialized header.
+     * 
+     * @param in little-endian buffer positioned at the header; left after it
+     * @return the length in bits
+     */
+    static int readHeader(ByteBuffer in) {
+        if (in.remaining() < HEADER_BYTES || in.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a serialized binary number.");
+        }
+        int version = in.getInt();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported version " + version + ".");
+        }
+        int len = in.getInt();
+        in.getInt();
+        if (len <= 0) {
+            throw new IllegalArgumentException("Invalid Length: length must be greater than 0.");
+        }
+        return len;
+    }
+
+    /**
+     * Returns a compressed copy of this BinaryNumber, suited to long numbers that
+     * are mostly zeros.
+     * 
+     * @return compressed binary number with the same length and digits
+     */
+    public CompressedBinaryNumber compress() {
+        return new CompressedBinaryNumber(this);
+    }
+
+    /**
+     * Returns packed word i, counted from the least significant end. Words past
+     * the end read as 0.
+     * 
+     * @param i the word to read
+     * @return the word
+     */
+    long word(int i) {
+        if (i >= wordsFor(length)) {
+            return 0;
+        }
+        if (offset == 0 && pad == 0) {
+            return words[i];
+        }
+
+        // gather the 64 storage bits behind logical bits [64i, 64i + 64)
+        int first = i << WORD_SHIFT;
+        long q = (long) first - pad + offset;
+        long w;
+        if (q >= 0) {
+            int index = (int) (q >>> WORD_SHIFT);
+            int bit = (int) (q & WORD_MASK);
+            w = (index < words.length) ? words[index] >>> bit : 0;
+            if (bit != 0 && index + 1 < words.length) {
+                w |= words[index + 1] << (WORD_BITS - bit);
             }
-            return bitwiseAnd;
         } else {
-            throw new IllegalArgumentException("Binary numbers are not equal in length.");
+            w = (q > -WORD_BITS) ? words[0] << -q : 0;
+        }
+
+        // logical bits below pad are 0, whatever the storage holds there
+        if (first < pad) {
+            w = (pad - first >= WORD_BITS) ? 0 : w & (-1L << (pad - first));
+        }
+        // storage bits past the view are not part of this number
+        int top = length - first;
+        if (top < WORD_BITS) {
+            w &= (1L << top) - 1;
+        }
+        return w;
+    }
+
+    /**
+     * Returns words laid out with bit p of the number at bit p of the array. A
+     * shifted view is laid out unshifted in storage of its own the first time
+     * this is called, and keeps that storage, so later reads copy nothing. The
+     * result must not be written to.
+     * 
+     * @return packed words, at least as many as the length needs
+     */
+    private long[] readWords() {
+        if (offset != 0 || pad != 0) {
+            long[] result = new long[wordsFor(length)];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = word(i);
+            }
+            words = result;
+            offset = 0;
+            pad = 0;
+            shared = false;
+        }
+        return words;
+    }
+
+    /**
+     * Gives this number its own unshifted storage so that it can be written to.
+     */
+    private void materialize() {
+        if (offset != 0 || pad != 0) {
+            readWords();
+        } else if (shared) {
+            words = words.clone();
+        }
+        shared = false;
+    }
+
+    /**
+     * Wraps packed words as a BinaryNumber without copying them.
+     * 
+     * @param words  the packed words, least significant word first
+     * @param length the number of bits
+     * @return binary number
+     */
+    static BinaryNumber fromWords(long[] words, int length) {
+        return new BinaryNumber(words, length);
+    }
+
+    /**
+     * Returns the number of words needed to hold <code>bits</code> bits.
+     * 
+     * @param bits the number of bits
+     * @return number of words
+     */
+    private static int wordsFor(int bits) {
+        return (bits + WORD_MASK) >>> WORD_SHIFT;
+    }
+
+    /**
+     * Unpacks words into one int per digit, most significant digit first.
+     * 
+     * @param words  the packed words
+     * @param length the number of bits
+     * @return unpacked digits
+     */
+    private static int[] toIntArray(long[] words, int length) {
+        int[] digits = new int[length];
+        for (int i = 0; i < length; i++) {
+            int position = length - 1 - i;
+            digits[i] = (int) (words[position >>> WORD_SHIFT] >>> position) & 1;
         }
+        return digits;
     }
 }
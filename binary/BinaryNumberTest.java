@@ -0,0 +1,885 @@
+package binary;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class BinaryNumberTest {
+
+    private final Random random = new Random(284);
+
+    /**
+     * Returns a random string of '0' and '1' of the given length.
+     */
+    private String randomBits(int length) {
+        char[] bits = new char[length];
+        for (int i = 0; i < length; i++) {
+            bits[i] = random.nextBoolean() ? '1' : '0';
+        }
+        return new String(bits);
+    }
+
+    @Test
+    public void testPackedDigits() {
+        for (int length : new int[] { 1, 63, 64, 65, 128, 200 }) {
+            String s = randomBits(length);
+            BinaryNumber bn = new BinaryNumber(s);
+            assertEquals(length, bn.getLength());
+            assertEquals(s, bn.toString());
+            int[] digits = bn.getInnerArray();
+            assertEquals(length, digits.length);
+            for (int i = 0; i < length; i++) {
+                assertEquals(s.charAt(i) - '0', bn.getDigit(i));
+                assertEquals(s.charAt(i) - '0', digits[i]);
+            }
+        }
+        assertEquals("0000", new BinaryNumber(4).toString());
+        assertEquals(5, new BinaryNumber("0101").toDecimal());
+
+        try {
+            new BinaryNumber("012");
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+        try {
+            new BinaryNumber(0);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+        try {
+            new BinaryNumber("101").getDigit(3);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testBitShiftAcrossWords() {
+        String s = randomBits(100);
+        BinaryNumber bn = new BinaryNumber(s);
+        bn.bitShift(-1, 70);
+        assertEquals(170, bn.getLength());
+        assertEquals(s + "0".repeat(70), bn.toString());
+        bn.bitShift(1, 100);
+        assertEquals(s.substring(0, 70), bn.toString());
+        bn.bitShift(1, 70);
+        assertEquals("0", bn.toString());
+
+        try {
+            bn.bitShift(0, 1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testAddInPlace() {
+        BigInteger expected = BigInteger.ZERO;
+        BinaryNumber sum = new BinaryNumber(1);
+        for (int i = 0; i < 200; i++) {
+            String s = randomBits(1 + random.nextInt(300));
+            sum.add(new BinaryNumber(s));
+            expected = expected.add(new BigInteger(s, 2));
+            assertEquals(expected, new BigInteger(sum.toString(), 2));
+        }
+
+        // the carry out of the top word becomes a new digit
+        BinaryNumber ones = new BinaryNumber("1".repeat(128));
+        ones.add(new BinaryNumber("1"));
+        assertEquals(129, ones.getLength());
+        assertEquals("1" + "0".repeat(128), ones.toString());
+
+        BinaryNumber acc = new BinaryNumber(1);
+        acc.ensureCapacity(1000);
+        acc.add(new BinaryNumber("1".repeat(500)));
+        acc.trimToSize();
+        assertEquals("1".repeat(500), acc.toString());
+    }
+
+    @Test
+    public void testLongAndBigIntegerConversions() {
+        assertEquals("0", BinaryNumber.valueOf(0L).toString());
+        assertEquals(0L, BinaryNumber.valueOf(0L).toLong());
+        assertEquals(Long.MAX_VALUE, BinaryNumber.valueOf(Long.MAX_VALUE).toLong());
+        assertEquals(63, BinaryNumber.valueOf(Long.MAX_VALUE).getLength());
+        assertEquals("0", BinaryNumber.valueOf(BigInteger.ZERO).toString());
+
+        for (int bits : new int[] { 1, 63, 64, 65, 300 }) {
+            BigInteger value = new BigInteger(bits, random).setBit(bits - 1);
+            BinaryNumber bn = BinaryNumber.valueOf(value);
+            assertEquals(bits, bn.getLength());
+            assertEquals(value, bn.toBigInteger());
+            assertEquals(value.toString(2), bn.toString());
+        }
+
+        try {
+            BinaryNumber.valueOf(-1L);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+        try {
+            BinaryNumber.valueOf(BigInteger.ONE.negate());
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+        try {
+            BinaryNumber.valueOf(BigInteger.ONE.shiftLeft(64)).toLong();
+            fail();
+        } catch (ArithmeticException e) {
+            assertTrue(true);
+        }
+        try {
+            BinaryNumber.valueOf(1L << 31).toDecimal();
+            fail();
+        } catch (ArithmeticException e) {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testHexAndBytes() {
+        BinaryNumber bn = BinaryNumber.parseHex("00fF".toCharArray());
+        assertEquals(16, bn.getLength());
+        assertEquals("00ff", bn.toHexString());
+        assertEquals(255, bn.toDecimal());
+
+        String hex = new BigInteger(800, random).toString(16);
+        BinaryNumber wide = BinaryNumber.parseHex(hex.toCharArray());
+        assertEquals(4 * hex.length(), wide.getLength());
+        assertEquals(hex, wide.toHexString());
+        assertEquals(new BigInteger(hex, 16), wide.toBigInteger());
+
+        // a length that is not a multiple of 4 or 8 gets leading zeros
+        assertEquals("5", new BinaryNumber("101").toHexString());
+        assertEquals("05", new BinaryNumber("00101").toHexString());
+        assertArrayEquals(new byte[] { 5 }, new BinaryNumber("101").toByteArray());
+        byte[] bytes = new BigInteger(200, random).toByteArray();
+        assertArrayEquals(bytes, BinaryNumber.fromByteArray(bytes).toByteArray());
+
+        try {
+            BinaryNumber.parseHex("12g".toCharArray());
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+        try {
+            BinaryNumber.parseHex(new char[0]);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+        try {
+            BinaryNumber.fromByteArray(new byte[0]);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testBase64() {
+        BigInteger value = new BigInteger(333, random);
+        BinaryNumber bn = BinaryNumber.valueOf(value);
+        String base64 = bn.toBase64();
+        assertEquals(value, BinaryNumber.fromBase64(base64.getBytes()).toBigInteger());
+        assertEquals("AA==", BinaryNumber.valueOf(0L).toBase64());
+
+        try {
+            BinaryNumber.fromBase64("!!!!".getBytes());
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testDecimal() {
+        assertEquals("0", BinaryNumber.parseDecimal("0".toCharArray()).toDecimalString());
+        assertEquals("0", new BinaryNumber(200).toDecimalString());
+        assertEquals(1, BinaryNumber.parseDecimal("0".toCharArray()).getLength());
+        assertEquals("123456789012345678",
+                BinaryNumber.parseDecimal("123456789012345678".toCharArray()).toDecimalString());
+
+        for (int digits : new int[] { 18, 19, 37, 500 }) {
+            BigInteger value = new BigInteger(4 * digits, random);
+            String decimal = value.toString();
+            BinaryNumber bn = BinaryNumber.parseDecimal(decimal.toCharArray());
+            assertEquals(value, bn.toBigInteger());
+            assertEquals(Math.max(1, value.bitLength()), bn.getLength());
+            assertEquals(decimal, bn.toDecimalString());
+        }
+
+        try {
+            BinaryNumber.parseDecimal("12a".toCharArray());
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+        try {
+            BinaryNumber.parseDecimal("-1".toCharArray());
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+        try {
+            BinaryNumber.parseDecimal(new char[0]);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+    }
+
+    /**
+     * Checks every digit of a compressed number against the positions of its
+     * ones, counted from the least significant end.
+     */
+    private static void assertSameBits(BitSet expected, CompressedBinaryNumber c) {
+        assertEquals(expected.cardinality(), c.bitCount());
+        int length = c.getLength();
+        for (int p = 0; p < length; p++) {
+            assertEquals(expected.get(p) ? 1 : 0, c.getDigit(length - 1 - p));
+        }
+    }
+
+    @Test
+    public void testCompressedSetDigitConvertsContainers() {
+        int length = 1 << 16;
+        CompressedBinaryNumber c = new CompressedBinaryNumber(length);
+        BitSet expected = new BitSet();
+
+        // a run of ones grows as an array until it passes 4096, then becomes
+        // a single run
+        for (int p = 0; p < 10000; p++) {
+            c.setDigit(length - 1 - p, 1);
+            expected.set(p);
+            if (p == 4095) {
+                assertEquals(2 + 2 * 4096, c.sizeInBytes());
+            }
+        }
+        assertEquals(2 + 4, c.sizeInBytes());
+
+        // splitting and trimming runs in place
+        c.setDigit(length - 1 - 5000, 0);
+        c.setDigit(length - 1 - 0, 0);
+        c.setDigit(length - 1 - 9999, 0);
+        expected.clear(5000);
+        expected.clear(0);
+        expected.clear(9999);
+        assertEquals(2 + 8, c.sizeInBytes());
+        c.setDigit(length - 1 - 5000, 1);
+        expected.set(5000);
+        assertEquals(2 + 4, c.sizeInBytes());
+        assertSameBits(expected, c);
+
+        // too many runs for the run container: it becomes a bitmap
+        for (int p = 2; p < 9998; p += 2) {
+            c.setDigit(length - 1 - p, 0);
+            expected.clear(p);
+        }
+        assertEquals(2 + 8192, c.sizeInBytes());
+        assertSameBits(expected, c);
+
+        // the bitmap drops to an array once it holds few enough ones
+        for (int p = 1; p < 2000; p += 2) {
+            c.setDigit(length - 1 - p, 0);
+            expected.clear(p);
+        }
+        assertEquals(2 + 2 * expected.cardinality(), c.sizeInBytes());
+        assertSameBits(expected, c);
+
+        // emptying the chunk removes it
+        for (int p = expected.nextSetBit(0); p >= 0; p = expected.nextSetBit(p + 1)) {
+            c.setDigit(length - 1 - p, 0);
+        }
+        assertEquals(0, c.sizeInBytes());
+        assertEquals(0, c.bitCount());
+    }
+
+    /**
+     * Returns a number of 3 chunks: sparse ones, dense random ones and long
+     * runs, so that its chunks are an array, a bitmap and a run container.
+     */
+    private BinaryNumber mixedChunks() {
+        int length = 3 << 16;
+        StringBuilder b = new StringBuilder(length);
+        for (int p = length - 1; p >= 0; p--) {
+            int chunk = p >>> 16;
+            boolean one;
+            if (chunk == 0) {
+                one = random.nextInt(100) == 0;
+            } else if (chunk == 1) {
+                one = random.nextBoolean();
+            } else {
+                one = (p & 4095) < 3000;
+            }
+            b.append(one ? '1' : '0');
+        }
+        return new BinaryNumber(b.toString());
+    }
+
+    @Test
+    public void testCompressedRandomSetDigit() {
+        BinaryNumber bn = mixedChunks();
+        CompressedBinaryNumber c = bn.compress();
+        assertEquals(bn.toString(), c.toString());
+        int length = c.getLength();
+        BitSet expected = new BitSet();
+        for (int p = 0; p < length; p++) {
+            if (bn.getDigit(length - 1 - p) == 1) {
+                expected.set(p);
+            }
+        }
+
+        for (int i = 0; i < 50000; i++) {
+            int p = random.nextInt(length);
+            int bit = random.nextInt(2);
+            c.setDigit(length - 1 - p, bit);
+            expected.set(p, bit == 1);
+            assertEquals(bit, c.getDigit(length - 1 - p));
+        }
+        assertSameBits(expected, c);
+    }
+
+    @Test
+    public void testCompressedAndOr() {
+        BinaryNumber x = mixedChunks();
+        BinaryNumber y = mixedChunks();
+        BinaryNumber sparse = new BinaryNumber(1 << 17);
+        sparse = sparse.or(BinaryNumber.valueOf(BigInteger.ONE.shiftLeft(70000).setBit(3)));
+        CompressedBinaryNumber cx = x.compress();
+        CompressedBinaryNumber cy = y.compress();
+        CompressedBinaryNumber cs = sparse.compress();
+
+        assertEquals(x.and(y).toString(), cx.and(cy).toString());
+        assertEquals(x.or(y).toString(), cx.or(cy).toString());
+        assertEquals(x.and(sparse).toString(), cx.and(cs).toString());
+        assertEquals(x.or(sparse).toString(), cx.or(cs).toString());
+        assertEquals(sparse.or(x).toString(), cs.or(cx).toString());
+
+        // or shares the chunks only one side has; changing the result must not
+        // change the operand
+        CompressedBinaryNumber union = cs.or(new CompressedBinaryNumber(10));
+        int length = union.getLength();
+        union.setDigit(length - 1 - 70001, 1);
+        assertEquals(0, cs.getDigit(cs.getLength() - 1 - 70001));
+        cs.setDigit(cs.getLength() - 1 - 3, 0);
+        assertEquals(1, union.getDigit(length - 1 - 3));
+        assertEquals(3, union.bitCount());
+        assertEquals(1, cs.bitCount());
+    }
+
+    /**
+     * Checks rank at every index and select at every one of a number against
+     * its digit string.
+     */
+    private static void assertRankSelect(String s, BinaryNumber bn) {
+        long ones = 0;
+        for (int i = 0; i <= s.length(); i++) {
+            assertEquals(ones, bn.rank(i));
+            if (i < s.length() && s.charAt(i) == '1') {
+                assertEquals(i, bn.select(ones));
+                ones++;
+            }
+        }
+        try {
+            bn.select(ones);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testRankSelectIndex() {
+        // about 3.5 samples of 4096 ones, so select crosses sample boundaries
+        String s = randomBits(29000);
+        BinaryNumber bn = new BinaryNumber(s);
+        assertRankSelect(s, bn);
+        bn.buildRankSelectIndex();
+        assertTrue(bn.hasRankSelectIndex());
+        assertRankSelect(s, bn);
+
+        // all ones: the k-th one is digit k, and samples fall on superblock
+        // boundaries
+        String ones = "1".repeat(3 * 4096 + 1);
+        BinaryNumber all = new BinaryNumber(ones);
+        all.buildRankSelectIndex();
+        for (long k : new long[] { 0, 4095, 4096, 4097, 8191, 8192, 3 * 4096 }) {
+            assertEquals(k, all.select(k));
+        }
+        assertRankSelect(ones, all);
+    }
+
+    @Test
+    public void testRankSelectAfterChange() {
+        String s = randomBits(10000);
+        BinaryNumber bn = new BinaryNumber(s);
+        bn.buildRankSelectIndex();
+
+        String t = randomBits(9000);
+        bn.add(new BinaryNumber(t));
+        assertFalse(bn.hasRankSelectIndex());
+        String sum = new BigInteger(s, 2).add(new BigInteger(t, 2)).toString(2);
+        sum = "0".repeat(bn.getLength() - sum.length()) + sum;
+        assertRankSelect(sum, bn);
+
+        bn.buildRankSelectIndex();
+        bn.bitShift(-1, 100);
+        assertFalse(bn.hasRankSelectIndex());
+        assertRankSelect(sum + "0".repeat(100), bn);
+        bn.buildRankSelectIndex();
+        assertRankSelect(sum + "0".repeat(100), bn);
+    }
+
+    /**
+     * Builds a value from 32-bit digits, least significant first, the way
+     * algorithm D sees it.
+     */
+    private static BigInteger digits(long... d) {
+        BigInteger value = BigInteger.ZERO;
+        for (int i = d.length - 1; i >= 0; i--) {
+            value = value.shiftLeft(32).add(BigInteger.valueOf(d[i]));
+        }
+        return value;
+    }
+
+    /** A random value exactly words * 64 bits long */
+    private BigInteger randomWords(int words) {
+        return new BigInteger(words * 64, random).setBit(words * 64 - 1);
+    }
+
+    private static void assertMultiply(BigInteger a, BigInteger b) {
+        BinaryNumber product = BinaryNumber.valueOf(a).multiply(BinaryNumber.valueOf(b));
+        assertEquals(a.multiply(b), product.toBigInteger());
+        assertEquals(Math.max(1, a.bitLength()) + Math.max(1, b.bitLength()), product.getLength());
+    }
+
+    private static void assertDivmod(BigInteger u, BigInteger v) {
+        BinaryNumber[] qr = BinaryNumber.valueOf(u).divmod(BinaryNumber.valueOf(v));
+        BigInteger[] expected = u.divideAndRemainder(v);
+        assertEquals(expected[0], qr[0].toBigInteger());
+        assertEquals(expected[1], qr[1].toBigInteger());
+    }
+
+    @Test
+    public void testMultiply() {
+        // schoolbook below KARATSUBA_THRESHOLD words, Karatsuba from it on
+        int[] sizes = { 1, 2, 10, WordArithmetic.KARATSUBA_THRESHOLD - 1, WordArithmetic.KARATSUBA_THRESHOLD,
+                WordArithmetic.KARATSUBA_THRESHOLD + 1, 2 * WordArithmetic.KARATSUBA_THRESHOLD + 3, 200 };
+        for (int a : sizes) {
+            for (int b : sizes) {
+                assertMultiply(randomWords(a), randomWords(b));
+            }
+        }
+        // all ones make every partial product carry
+        BigInteger ones = BigInteger.ONE.shiftLeft(64 * 100).subtract(BigInteger.ONE);
+        assertMultiply(ones, ones);
+        assertMultiply(ones, randomWords(WordArithmetic.KARATSUBA_THRESHOLD));
+
+        BigInteger big = randomWords(WordArithmetic.KARATSUBA_THRESHOLD + 1);
+        assertMultiply(BigInteger.ZERO, big);
+        assertMultiply(big, BigInteger.ZERO);
+        assertMultiply(BigInteger.ONE, big);
+        assertMultiply(big, BigInteger.ONE);
+        assertMultiply(BigInteger.ZERO, BigInteger.ONE);
+    }
+
+    @Test
+    public void testDivmod() {
+        // a single 32-bit digit and a single word divisor
+        BigInteger u = randomWords(50);
+        assertDivmod(u, BigInteger.valueOf(7));
+        assertDivmod(u, BigInteger.valueOf(0xFFFFFFFFL));
+        assertDivmod(u, BigInteger.valueOf(Long.MAX_VALUE));
+        assertDivmod(u, new BigInteger("FFFFFFFFFFFFFFFF", 16));
+        assertDivmod(u, BigInteger.ONE);
+
+        // zero and one, and a dividend shorter than the divisor
+        assertDivmod(BigInteger.ZERO, u);
+        assertDivmod(BigInteger.ONE, u);
+        assertDivmod(u.shiftRight(100), u);
+        assertDivmod(u, u);
+
+        // the first guess at a quotient digit is too big and has to be corrected
+        assertDivmod(digits(0, 0xFFFFFFFEL, 0, 0x80000000L), digits(0xFFFFFFFFL, 0, 0x80000000L));
+        assertDivmod(digits(0x89ABCDEFL, 0x01234567L, 0, 1), digits(0x01234567L, 0x89ABCDEFL, 1));
+        // the corrected digit is still one too big, so the divisor is added back
+        assertDivmod(digits(0, 0, 0x80000000L, 0x7FFFFFFFL), digits(1, 0, 0x80000000L));
+        assertDivmod(digits(3, 0, 0x80000000L), digits(1, 0, 0x20000000L));
+
+        for (int i = 0; i < 300; i++) {
+            BigInteger v = new BigInteger(1 + random.nextInt(64 * 30), random).add(BigInteger.ONE);
+            assertDivmod(new BigInteger(random.nextInt(64 * 60), random), v);
+        }
+
+        try {
+            BinaryNumber.valueOf(u).divmod(new BinaryNumber(70));
+            fail();
+        } catch (ArithmeticException e) {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testModPow() {
+        BigInteger odd = randomWords(8).setBit(0);
+        BigInteger even = randomWords(8).clearBit(0);
+        BigInteger power = BigInteger.ONE.shiftLeft(300);
+        BigInteger small = BigInteger.valueOf(1000);
+        for (BigInteger m : new BigInteger[] { odd, even, power, small, BigInteger.valueOf(3), BigInteger.ONE }) {
+            for (BigInteger b : new BigInteger[] { BigInteger.ZERO, BigInteger.ONE, randomWords(3), randomWords(12) }) {
+                for (BigInteger e : new BigInteger[] { BigInteger.ZERO, BigInteger.ONE, BigInteger.TWO,
+                        randomWords(2) }) {
+                    BinaryNumber result = BinaryNumber.valueOf(b).modPow(BinaryNumber.valueOf(e),
+                            BinaryNumber.valueOf(m));
+                    assertEquals(b.modPow(e, m), result.toBigInteger());
+                    assertEquals(m.bitLength(), result.getLength());
+                }
+            }
+        }
+
+        try {
+            BinaryNumber.valueOf(5).modPow(BinaryNumber.valueOf(3), new BinaryNumber(8));
+            fail();
+        } catch (ArithmeticException e) {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testParallelAdd() {
+        int threshold = BinaryNumber.getParallelAddThreshold();
+        BinaryNumber.setParallelAddThreshold(64);
+        try {
+            // wide enough to be cut into several chunks of 4096 words
+            int width = 64 * 4096 * 5;
+
+            // all ones plus one carries through every chunk
+            BinaryNumber bn = new BinaryNumber("1".repeat(width));
+            bn.add(new BinaryNumber("1"));
+            assertEquals(width + 1, bn.getLength());
+            assertEquals(BigInteger.ONE.shiftLeft(width), bn.toBigInteger());
+
+            // a carry out of the low chunk that stops part way through a later one
+            BigInteger low = BigInteger.ONE.shiftLeft(width - 100).subtract(BigInteger.ONE);
+            BigInteger top = new BigInteger(100, random).setBit(99).clearBit(0);
+            BigInteger x = top.shiftLeft(width - 100).or(low);
+            bn = BinaryNumber.valueOf(x);
+            bn.add(BinaryNumber.valueOf(BigInteger.TWO));
+            assertEquals(x.add(BigInteger.TWO), bn.toBigInteger());
+
+            for (int i = 0; i < 3; i++) {
+                BigInteger a = new BigInteger(width, random);
+                BigInteger b = new BigInteger(width - random.nextInt(64 * 4096), random);
+                bn = BinaryNumber.valueOf(a);
+                bn.add(BinaryNumber.valueOf(b));
+                assertEquals(a.add(b), bn.toBigInteger());
+            }
+        } finally {
+            BinaryNumber.setParallelAddThreshold(threshold);
+        }
+    }
+
+    @Test
+    public void testWriteAndReadBuffer() {
+        BinaryNumber first = new BinaryNumber(randomBits(1000));
+        BinaryNumber second = new BinaryNumber("101");
+        BinaryNumber third = new BinaryNumber(randomBits(128));
+        third.bitShift(-1, 7);
+
+        for (ByteBuffer buffer : new ByteBuffer[] { ByteBuffer.allocate(2000), ByteBuffer.allocateDirect(2000) }) {
+            buffer.position(3);
+            first.writeTo(buffer);
+            second.writeTo(buffer);
+            third.writeTo(buffer);
+            assertEquals(3 + first.serializedSize() + second.serializedSize() + third.serializedSize(),
+                    buffer.position());
+
+            buffer.flip().position(3);
+            assertEquals(first.toString(), BinaryNumber.readFrom(buffer).toString());
+            assertEquals(3 + first.serializedSize(), buffer.position());
+            MappedBinaryNumber mapped = new MappedBinaryNumber(buffer);
+            assertEquals(3 + first.serializedSize(), buffer.position());
+            assertEquals(second.toString(), mapped.toString());
+            assertEquals("101", BinaryNumber.readFrom(buffer).toString());
+            BinaryNumber read = BinaryNumber.readFrom(buffer);
+            assertEquals(third.getLength(), read.getLength());
+            assertEquals(third.toString(), read.toString());
+            assertFalse(buffer.hasRemaining());
+        }
+    }
+
+    @Test
+    public void testReadTruncatedOrInvalid() {
+        BinaryNumber bn = new BinaryNumber(randomBits(300));
+        ByteBuffer buffer = ByteBuffer.allocate((int) bn.serializedSize());
+        bn.writeTo(buffer);
+
+        // every proper prefix is rejected, header or words
+        for (int limit : new int[] { 0, 4, 15, 16, 17, buffer.capacity() - 8, buffer.capacity() - 1 }) {
+            buffer.clear().limit(limit);
+            try {
+                BinaryNumber.readFrom(buffer);
+                fail();
+            } catch (IllegalArgumentException e) {
+                assertTrue(true);
+            }
+            assertEquals(0, buffer.position());
+            try {
+                new MappedBinaryNumber(buffer);
+                fail();
+            } catch (IllegalArgumentException e) {
+                assertTrue(true);
+            }
+        }
+
+        // wrong magic and wrong version
+        for (int at : new int[] { 0, 4 }) {
+            ByteBuffer copy = ByteBuffer.allocate(buffer.capacity());
+            copy.put(buffer.clear()).flip();
+            copy.put(at, (byte) (copy.get(at) + 1));
+            try {
+                BinaryNumber.readFrom(copy);
+                fail();
+            } catch (IllegalArgumentException e) {
+                assertTrue(true);
+            }
+        }
+    }
+
+    @Test
+    public void testMappedFile() throws IOException {
+        String bits = randomBits(64 * 1000 + 5);
+        BinaryNumber bn = new BinaryNumber(bits);
+        Path file = Files.createTempFile("binary", ".bin");
+        try {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                new BinaryNumber("11").writeTo(channel);
+                bn.writeTo(channel);
+            }
+            assertEquals(new BinaryNumber("11").serializedSize() + bn.serializedSize(), Files.size(file));
+
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedBinaryNumber mapped = MappedBinaryNumber.map(channel, new BinaryNumber("11").serializedSize());
+                assertEquals(bits.length(), mapped.getLength());
+                for (int i = 0; i < bits.length(); i += 37) {
+                    assertEquals(bits.charAt(i) - '0', mapped.getDigit(i));
+                }
+                assertEquals(bits.chars().filter(c -> c == '1').count(), mapped.bitCount());
+                assertEquals(bits, mapped.toBinaryNumber().toString());
+
+                // an offset that is not at a header
+                try {
+                    MappedBinaryNumber.map(channel, 16);
+                    fail();
+                } catch (IllegalArgumentException e) {
+                    assertTrue(true);
+                }
+            }
+
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(Files.size(file) - 1);
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedBinaryNumber.map(channel, new BinaryNumber("11").serializedSize());
+                fail();
+            } catch (IllegalArgumentException e) {
+                assertTrue(true);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Returns a number with the given digits, built as a plain number, a view
+     * shifted right past extra low digits, a view shifted left over trailing
+     * zeros, or a view of such a view.
+     */
+    private BinaryNumber anyView(String digits) {
+        int zeros = digits.length() - 1 - digits.lastIndexOf('1');
+        switch (random.nextInt(4)) {
+        case 0:
+            return new BinaryNumber(digits);
+        case 1:
+            int extra = 1 + random.nextInt(100);
+            return new BinaryNumber(digits + randomBits(extra)).shifted(1, extra);
+        case 2:
+            if (zeros > 0 && zeros < digits.length()) {
+                int pad = 1 + random.nextInt(zeros);
+                return new BinaryNumber(digits.substring(0, digits.length() - pad)).shifted(-1, pad);
+            }
+            return new BinaryNumber(digits);
+        default:
+            int low = 1 + random.nextInt(70);
+            return new BinaryNumber(digits + randomBits(low) + "0").shifted(-1, 3).shifted(1, low + 4);
+        }
+    }
+
+    private static String digits(BigInteger value, int length) {
+        String s = value.toString(2);
+        return "0".repeat(length - s.length()) + s;
+    }
+
+    @Test
+    public void testXorAndNotNot() {
+        int[] lengths = { 1, 2, 63, 64, 65, 127, 128, 129, 300 };
+        for (int la : lengths) {
+            for (int lb : lengths) {
+                for (int round = 0; round < 4; round++) {
+                    String sa = randomBits(la);
+                    String sb = (round == 3) ? randomBits(lb).replace('1', '0') : randomBits(lb);
+                    if (round == 2) {
+                        // trailing zeros, so left shifted views come up
+                        sa = sa.substring(0, la - la / 3) + "0".repeat(la / 3);
+                        sb = sb.substring(0, lb - lb / 3) + "0".repeat(lb / 3);
+                    }
+                    BinaryNumber a = anyView(sa);
+                    BinaryNumber b = anyView(sb);
+                    assertEquals(sa, a.toString());
+                    assertEquals(sb, b.toString());
+                    BigInteger x = new BigInteger(sa, 2);
+                    BigInteger y = new BigInteger(sb, 2);
+                    int length = Math.max(la, lb);
+
+                    assertEquals(digits(x.xor(y), length), a.xor(b).toString());
+                    assertEquals(digits(x.andNot(y), length), a.andNot(b).toString());
+                    assertEquals(digits(y.andNot(x), length), b.andNot(a).toString());
+                    assertEquals(digits(x.or(y), length), a.or(b).toString());
+                    assertEquals(digits(x.and(y), length), a.and(b).toString());
+
+                    BinaryNumber not = a.not();
+                    assertEquals(la, not.getLength());
+                    assertEquals(digits(x.xor(BigInteger.ONE.shiftLeft(la).subtract(BigInteger.ONE)), la),
+                            not.toString());
+                    assertEquals(la - x.bitCount(), not.bitCount());
+                    assertEquals(sa, not.not().toString());
+
+                    // the operands are left as they were
+                    assertEquals(sa, a.toString());
+                    assertEquals(sb, b.toString());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testXorAndNotAgainstBitSet() {
+        // digit i of the string is bit length - 1 - i of the BitSet
+        String sa = randomBits(5000);
+        String sb = randomBits(3000);
+        BitSet x = new BitSet();
+        BitSet y = new BitSet();
+        for (int i = 0; i < sa.length(); i++) {
+            x.set(sa.length() - 1 - i, sa.charAt(i) == '1');
+        }
+        for (int i = 0; i < sb.length(); i++) {
+            y.set(sb.length() - 1 - i, sb.charAt(i) == '1');
+        }
+        BitSet xor = (BitSet) x.clone();
+        xor.xor(y);
+        BitSet andNot = (BitSet) x.clone();
+        andNot.andNot(y);
+
+        BinaryNumber a = anyView(sa);
+        BinaryNumber b = anyView(sb);
+        assertSameBits(xor, a.xor(b));
+        assertSameBits(xor, b.xor(a));
+        assertSameBits(andNot, a.andNot(b));
+        BitSet flipped = (BitSet) x.clone();
+        flipped.flip(0, sa.length());
+        assertSameBits(flipped, a.not());
+    }
+
+    private static void assertSameBits(BitSet expected, BinaryNumber bn) {
+        for (int i = 0; i < bn.getLength(); i++) {
+            assertEquals(expected.get(bn.getLength() - 1 - i) ? 1 : 0, bn.getDigit(i));
+        }
+        assertEquals(expected.cardinality(), bn.bitCount());
+    }
+
+    @Test
+    public void testViewsCopyOnWrite() {
+        String s = randomBits(300);
+        BinaryNumber one = new BinaryNumber("1");
+
+        // writing to a view leaves its source alone
+        BinaryNumber source = new BinaryNumber(s);
+        BinaryNumber view = source.shifted(1, 70);
+        view.add(one);
+        assertEquals(s, source.toString());
+        assertEquals(new BigInteger(s.substring(0, 230), 2).add(BigInteger.ONE), view.toBigInteger());
+
+        // and writing to the source leaves the view alone
+        source = new BinaryNumber(s);
+        view = source.shifted(-1, 5);
+        source.add(one);
+        assertEquals(s + "00000", view.toString());
+        assertEquals(new BigInteger(s, 2).add(BigInteger.ONE), source.toBigInteger());
+
+        // an unshifted view shares all of the storage
+        source = new BinaryNumber(s);
+        view = source.shifted(1, 0);
+        source.add(one);
+        assertEquals(s, view.toString());
+        view.add(one);
+        view.add(one);
+        assertEquals(new BigInteger(s, 2).add(BigInteger.ONE), source.toBigInteger());
+        assertEquals(new BigInteger(s, 2).add(BigInteger.TWO), view.toBigInteger());
+
+        // a view of a view, written to in every order
+        for (int writer = 0; writer < 3; writer++) {
+            source = new BinaryNumber(s);
+            BinaryNumber first = source.shifted(1, 3);
+            BinaryNumber second = first.shifted(-1, 9);
+            String[] expected = { s, s.substring(0, 297), s.substring(0, 297) + "0".repeat(9) };
+            BinaryNumber[] numbers = { source, first, second };
+            numbers[writer].add(one);
+            for (int i = 0; i < 3; i++) {
+                BigInteger value = new BigInteger(expected[i], 2);
+                assertEquals(i == writer ? value.add(BigInteger.ONE) : value, numbers[i].toBigInteger());
+            }
+        }
+    }
+
+    @Test
+    public void testViewReads() {
+        String s = randomBits(1000);
+        BinaryNumber source = new BinaryNumber(s);
+        BinaryNumber view = source.shifted(1, 37).shifted(-1, 11);
+        String t = s.substring(0, 963) + "0".repeat(11);
+
+        // reads on a view give the same answers before and after its words are laid out
+        for (int round = 0; round < 2; round++) {
+            assertEquals(t, view.toString());
+            assertEquals(new BigInteger(t, 2).bitLength(), view.bitLength());
+            for (int i = 0; i <= t.length(); i += 97) {
+                assertEquals(t.substring(0, i).chars().filter(c -> c == '1').count(), view.rank(i));
+            }
+            assertEquals(new BigInteger(t, 2).toString(), view.toDecimalString());
+        }
+        assertEquals(s, source.toString());
+
+        // a view read in full can still be shifted and written to
+        view.bitShift(1, 11);
+        view.add(new BinaryNumber("1"));
+        assertEquals(new BigInteger(s.substring(0, 963), 2).add(BigInteger.ONE), view.toBigInteger());
+        assertEquals(s, source.toString());
+        assertEquals(12, new BinaryNumber("110").shifted(1, 1).shifted(-1, 2).toDecimal());
+    }
+}
@@ -0,0 +1,88 @@
+package binary;
+
+/**
+ * Word-at-a-time bitwise kernels over packed <code>long</code> arrays.
+ * 
+ * Each kernel is a plain counted loop over the first <code>n</code> words with
+ * no branches in the body, which is the shape HotSpot's superword pass turns
+ * into SIMD instructions on its own. Population counts use
+ * {@link Long#bitCount(long)}, which compiles to the hardware popcount
+ * instruction where one exists.
+ *
+ * The jdk.incubator.vector API is not used. It is still incubating in Java 17,
+ * so every program that touches BinaryNumber, including the tests, the JMH
+ * forks and the footprint check, would have to run with
+ * <code>--add-modules jdk.incubator.vector</code> and would print an
+ * incubator warning. These loops are vectorized by the JIT without it.
+ */
+final class BitKernels {
+
+    private BitKernels() {
+    }
+
+    /**
+     * dst[i] = a[i] | b[i] for i in [0, n).
+     */
+    static void or(long[] a, long[] b, long[] dst, int n) {
+        for (int i = 0; i < n; i++) {
+            dst[i] = a[i] | b[i];
+        }
+    }
+
+    /**
+     * dst[i] = a[i] & b[i] for i in [0, n).
+     */
+    static void and(long[] a, long[] b, long[] dst, int n) {
+        for (int i = 0; i < n; i++) {
+            dst[i] = a[i] & b[i];
+        }
+    }
+
+    /**
+     * dst[i] = a[i] ^ b[i] for i in [0, n).
+     */
+    static void xor(long[] a, long[] b, long[] dst, int n) {
+        for (int i = 0; i < n; i++) {
+            dst[i] = a[i] ^ b[i];
+        }
+    }
+
+    /**
+     * dst[i] = a[i] & ~b[i] for i in [0, n).
+     */
+    static void andNot(long[] a, long[] b, long[] dst, int n) {
+        for (int i = 0; i < n; i++) {
+            dst[i] = a[i] & ~b[i];
+        }
+    }
+
+    /**
+     * dst[i] = ~a[i] for i in [0, n).
+     */
+    static void not(long[] a, long[] dst, int n) {
+        for (int i = 0; i < n; i++) {
+            dst[i] = ~a[i];
+        }
+    }
+
+    /**
+     * Counts the 1 bits in the first n words. Four independent sums keep the
+     * popcount units busy instead of waiting on a single running total.
+     * 
+     * @return the number of 1 bits
+     */
+    static long popCount(long[] a, int n) {
+        long c0 = 0, c1 = 0, c2 = 0, c3 = 0;
+        int i = 0;
+        for (; i + 3 < n; i += 4) {
+            c0 += Long.bitCount(a[i]);
+            c1 += Long.bitCount(a[i + 1]);
+            c2 += Long.bitCount(a[i + 2]);
+            c3 += Long.bitCount(a[i + 3]);
+        }
+        for (; i < n; i++) {
+            c0 += Long.bitCount(a[i]);
+        }
+        return c0 + c1 + c2 + c3;
+    }
+}
@@ -0,0 +1,735 @@
+package binary;
+
+import java.util.Arrays;
+
+/**
+ * A binary number stored as a compressed bitmap, for numbers that are long but
+ * mostly zeros.
+ * 
+ * Bit positions are split into chunks of 2^16. Only chunks that contain a 1 are
+ * stored, each in whichever container is smallest for its contents: a sorted
+ * array of positions, a plain 1024-word bitmap, or a list of runs of ones. Digit
+ * indices follow {@link BinaryNumber}: digit 0 is the most significant digit.
+ */
+public class CompressedBinaryNumber {
+
+    // Containers with at most this many ones are stored as sorted arrays
+    private static final int ARRAY_MAX = 4096;
+    private static final int CHUNK_BITS = 1 << 16;
+    private static final int CHUNK_WORDS = CHUNK_BITS / 64;
+
+    /**
+     * The low 16 bits of the positions of the ones in one chunk. Containers are
+     * changed in place by setDigit. The result of or shares the containers of
+     * chunks that only one operand has, so such a container is marked shared
+     * and copied by whichever holder changes it first.
+     */
+    abstract static class Container {
+
+        /** Whether another number may hold this container too */
+        boolean shared;
+
+        /** Number of ones in the container */
+        abstract int cardinality();
+
+        /** Whether the given low position is a one */
+        abstract boolean contains(char low);
+
+        /** Sets the container's ones in a 1024-word bitmap */
+        abstract void toBitmap(long[] bitmap);
+
+        /** Approximate number of bytes used by the container */
+        abstract int sizeInBytes();
+
+        /** An unshared copy of the container */
+        abstract Container copy();
+
+        /**
+         * Sets (one) or clears a low position that currently has the other value.
+         * Returns the container now holding the chunk: this one, a container of
+         * another kind if a size threshold was crossed, or null if the chunk is
+         * now empty.
+         */
+        abstract Container flip(char low, boolean one);
+
+        long[] toBitmap() {
+            long[] bitmap = new long[CHUNK_WORDS];
+            toBitmap(bitmap);
+            return bitmap;
+        }
+    }
+
+    /** Up to 4096 positions kept sorted */
+    static class ArrayContainer extends Container {
+        // the first cardinality values are in use
+        private char[] values;
+        private int cardinality;
+
+        ArrayContainer(char[] values) {
+            this.values = values;
+            this.cardinality = values.length;
+        }
+
+        int cardinality() {
+            return cardinality;
+        }
+
+        boolean contains(char low) {
+            return Arrays.binarySearch(values, 0, cardinality, low) >= 0;
+        }
+
+        void toBitmap(long[] bitmap) {
+            for (int i = 0; i < cardinality; i++) {
+                bitmap[values[i] >>> 6] |= 1L << values[i];
+            }
+        }
+
+        int sizeInBytes() {
+            return 2 * cardinality;
+        }
+
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, cardinality));
+        }
+
+        Container flip(char low, boolean one) {
+            if (one) {
+                if (cardinality == ARRAY_MAX) {
+                    long[] bitmap = toBitmap();
+                    bitmap[low >>> 6] |= 1L << low;
+                    return fromBitmap(bitmap);
+                }
+                int slot = -Arrays.binarySearch(values, 0, cardinality, low) - 1;
+                if (cardinality == values.length) {
+                    values = Arrays.copyOf(values, Math.min(ARRAY_MAX, Math.max(4, cardinality + (cardinality >> 1))));
+                }
+                System.arraycopy(values, slot, values, slot + 1, cardinality - slot);
+                values[slot] = low;
+                cardinality++;
+                return this;
+            }
+            int slot = Arrays.binarySearch(values, 0, cardinality, low);
+            System.arraycopy(values, slot + 1, values, slot, cardinality - slot - 1);
+            cardinality--;
+            return (cardinality == 0) ? null : this;
+        }
+    }
+
+    /** A plain bitmap of the whole chunk */
+    static class BitmapContainer extends Container {
+        private final long[] words;
+        private int cardinality;
+        // runs of ones, kept so that setDigit can tell when runs get smaller
+        private int runs;
+
+        BitmapContainer(long[] words, int cardinality, int runs) {
+            this.words = words;
+            this.cardinality = cardinality;
+            this.runs = runs;
+        }
+
+        int cardinality() {
+            return cardinality;
+        }
+
+        boolean contains(char low) {
+            return ((words[low >>> 6] >>> low) & 1) == 1;
+        }
+
+        void toBitmap(long[] bitmap) {
+            BitKernels.or(bitmap, words, bitmap, CHUNK_WORDS);
+        }
+
+        int sizeInBytes() {
+            return 8 * CHUNK_WORDS;
+        }
+
+        Container copy() {
+            return new BitmapContainer(words.clone(), cardinality, runs);
+        }
+
+        Container flip(char low, boolean one) {
+            // a bit between two zeros starts or ends a run of its own, a bit
+            // between two ones joins or splits a run
+            boolean below = low > 0 && contains((char) (low - 1));
+            boolean above = low < CHUNK_BITS - 1 && contains((char) (low + 1));
+            int change = (below && above) ? -1 : (!below && !above) ? 1 : 0;
+            words[low >>> 6] ^= 1L << low;
+            if (one) {
+                cardinality++;
+                runs += change;
+            } else {
+                cardinality--;
+                runs -= change;
+            }
+            return (bestKind(cardinality, runs) == BITMAP) ? this : fromBitmap(words);
+        }
+    }
+
+    /** Sorted, disjoint runs of ones stored as (start, length - 1) pairs */
+    static class RunContainer extends Container {
+        // the first 2 * count entries are in use
+        private char[] runs;
+        private int count;
+        private int cardinality;
+
+        RunContainer(char[] runs) {
+            this.runs = runs;
+            this.count = runs.length / 2;
+            int card = 0;
+            for (int i = 1; i < runs.length; i += 2) {
+                card += runs[i] + 1;
+            }
+            this.cardinality = card;
+        }
+
+        int cardinality() {
+            return cardinality;
+        }
+
+        /** The last run starting at or before low, or -1 */
+        private int find(char low) {
+            int lo = 0, hi = count - 1, found = -1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (runs[2 * mid] <= low) {
+                    found = mid;
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            return found;
+        }
+
+        private int start(int run) {
+            return runs[2 * run];
+        }
+
+        /** The last position of a run, inclusive */
+        private int end(int run) {
+            return runs[2 * run] + runs[2 * run + 1];
+        }
+
+        boolean contains(char low) {
+            int found = find(low);
+            return found >= 0 && low <= end(found);
+        }
+
+        void toBitmap(long[] bitmap) {
+            for (int i = 0; i < count; i++) {
+                setRange(bitmap, start(i), end(i) + 1);
+            }
+        }
+
+        int sizeInBytes() {
+            return 4 * count;
+        }
+
+        Container copy() {
+            return new RunContainer(Arrays.copyOf(runs, 2 * count));
+        }
+
+        Container flip(char low, boolean one) {
+            int i = find(low);
+            if (one) {
+                boolean joinsLeft = i >= 0 && end(i) + 1 == low;
+                boolean joinsRight = i + 1 < count && start(i + 1) == low + 1;
+                if (joinsLeft && joinsRight) {
+                    runs[2 * i + 1] = (char) (end(i + 1) - start(i));
+                    removeRun(i + 1);
+                } else if (joinsLeft) {
+                    runs[2 * i + 1]++;
+                } else if (joinsRight) {
+                    runs[2 * i + 2] = low;
+                    runs[2 * i + 3]++;
+                } else {
+                    insertRun(i + 1, low, 0);
+                }
+                cardinality++;
+            } else {
+                int start = start(i);
+                int end = end(i);
+                if (start == end) {
+                    removeRun(i);
+                } else if (low == start) {
+                    runs[2 * i]++;
+                    runs[2 * i + 1]--;
+                } else if (low == end) {
+                    runs[2 * i + 1]--;
+                } else {
+                    // split the run around low
+                    runs[2 * i + 1] = (char) (low - start - 1);
+                    insertRun(i + 1, low + 1, end - low - 1);
+                }
+                cardinality--;
+            }
+
+            if (cardinality == 0) {
+                return null;
+            }
+            switch (bestKind(cardinality, count)) {
+            case RUN:
+                return this;
+            case ARRAY:
+                char[] values = new char[cardinality];
+                int n = 0;
+                for (int r = 0; r < count; r++) {
+                    for (int p = start(r); p <= end(r); p++) {
+                        values[n++] = (char) p;
+                    }
+                }
+                return new ArrayContainer(values);
+            default:
+                return new BitmapContainer(toBitmap(), cardinality, count);
+            }
+        }
+
+        private void insertRun(int run, int start, int lengthMinusOne) {
+            if (2 * count == runs.length) {
+                runs = Arrays.copyOf(runs, Math.max(4, (runs.length + (runs.length >> 1)) & ~1));
+            }
+            System.arraycopy(runs, 2 * run, runs, 2 * run + 2, 2 * (count - run));
+            runs[2 * run] = (char) start;
+            runs[2 * run + 1] = (char) lengthMinusOne;
+            count++;
+        }
+
+        private void removeRun(int run) {
+            System.arraycopy(runs, 2 * run + 2, runs, 2 * run, 2 * (count - run - 1));
+            count--;
+        }
+    }
+
+    // Container kinds, as chosen by bestKind
+    private static final int ARRAY = 0;
+    private static final int BITMAP = 1;
+    private static final int RUN = 2;
+
+    /**
+     * Returns the kind of container that holds a chunk in the fewest bytes.
+     * 
+     * @param cardinality the number of ones
+     * @param runs        the number of runs of ones
+     * @return ARRAY, BITMAP or RUN
+     */
+    private static int bestKind(int cardinality, int runs) {
+        int runBytes = 4 * runs;
+        if (runBytes < 2 * cardinality && runBytes < 8 * CHUNK_WORDS) {
+            return RUN;
+        }
+        return (cardinality <= ARRAY_MAX) ? ARRAY : BITMAP;
+    }
+
+    private final int length;
+    private char[] keys;
+    private Container[] containers;
+    private int size;
+
+    /**
+     * Creates a compressed binary number of length <code>length</code> consisting
+     * only of zeros.
+     * 
+     * @param length the length of the binary number
+     */
+    public CompressedBinaryNumber(int length) {
+        if (length <= 0) {
+            throw new IllegalArgumentException("Invalid Length: length must be greater than 0.");
+        }
+        this.length = length;
+        this.keys = new char[4];
+        this.containers = new Container[4];
+        this.size = 0;
+    }
+
+    /**
+     * Creates a compressed copy of a binary number.
+     * 
+     * @param bn the binary number to compress
+     */
+    public CompressedBinaryNumber(BinaryNumber bn) {
+        this(bn.getLength());
+        int chunks = (length + CHUNK_BITS - 1) / CHUNK_BITS;
+        long[] bitmap = new long[CHUNK_WORDS];
+        for (int key = 0; key < chunks; key++) {
+            for (int w = 0; w < CHUNK_WORDS; w++) {
+                bitmap[w] = bn.word(key * CHUNK_WORDS + w);
+            }
+            Container c = fromBitmap(bitmap);
+            if (c != null) {
+                append((char) key, c);
+            }
+        }
+    }
+
+    /**
+     * Gets the length of the compressed binary number.
+     * 
+     * @return length
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Gets the bit at a given index.
+     * 
+     * @param index the bit to get
+     * @return bit at index
+     */
+    public int getDigit(int index) {
+        int position = toPosition(index);
+        int k = findKey((char) (position >>> 16));
+        return (k >= 0 && containers[k].contains((char) position)) ? 1 : 0;
+    }
+
+    /**
+     * Sets the bit at a given index.
+     * 
+     * @param index the bit to set
+     * @param bit   0 or 1
+     */
+    public void setDigit(int index, int bit) {
+        if (bit != 0 && bit != 1) {
+            throw new IllegalArgumentException("Invalid bit given '" + bit + "'.");
+        }
+        int position = toPosition(index);
+        char key = (char) (position >>> 16);
+        char low = (char) position;
+        int k = findKey(key);
+
+        if (k < 0) {
+            if (bit == 1) {
+                insert(-k - 1, key, new ArrayContainer(new char[] { low }));
+            }
+            return;
+        }
+
+        Container c = containers[k];
+        if (c.contains(low) == (bit == 1)) {
+            return;
+        }
+        if (c.shared) {
+            c = c.copy();
+        }
+        Container updated = c.flip(low, bit == 1);
+
+        if (updated == null) {
+            remove(k);
+        } else {
+            containers[k] = updated;
+        }
+    }
+
+    /**
+     * Returns the number of digits that are 1.
+     * 
+     * @return the population count
+     */
+    public long bitCount() {
+        long count = 0;
+        for (int i = 0; i < size; i++) {
+            count += containers[i].cardinality();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the approximate number of bytes used by the containers.
+     * 
+     * @return the compressed size in bytes
+     */
+    public long sizeInBytes() {
+        long bytes = 0;
+        for (int i = 0; i < size; i++) {
+            bytes += 2 + containers[i].sizeInBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the bitwise 'and' of two compressed numbers, aligned at their least
+     * significant digit as in {@link BinaryNumber#and(BinaryNumber)}. Only chunks
+     * present in both operands are visited.
+     * 
+     * @param other the number to 'and' with
+     * @return compressed number as long as the longer operand
+     */
+    public CompressedBinaryNumber and(CompressedBinaryNumber other) {
+        CompressedBinaryNumber result = new CompressedBinaryNumber(Math.max(length, other.length));
+        int i = 0, j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Container c = and(containers[i], other.containers[j]);
+                if (c != null) {
+                    result.append(keys[i], c);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the bitwise 'or' of two compressed numbers, aligned at their least
+     * significant digit as in {@link BinaryNumber#or(BinaryNumber)}. Chunks
+     * present in only one operand are shared with the result, not copied, until
+     * one of the numbers changes them with setDigit.
+     * 
+     * @param other the number to 'or' with
+     * @return compressed number as long as the longer operand
+     */
+    public CompressedBinaryNumber or(CompressedBinaryNumber other) {
+        CompressedBinaryNumber result = new CompressedBinaryNumber(Math.max(length, other.length));
+        int i = 0, j = 0;
+        while (i < size || j < other.size) {
+            if (j == other.size || (i < size && keys[i] < other.keys[j])) {
+                containers[i].shared = true;
+                result.append(keys[i], containers[i]);
+                i++;
+            } else if (i == size || keys[i] > other.keys[j]) {
+                other.containers[j].shared = true;
+                result.append(other.keys[j], other.containers[j]);
+                j++;
+            } else {
+                result.append(keys[i], or(containers[i], other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns an uncompressed copy of this number.
+     * 
+     * @return binary number with the same length and digits
+     */
+    public BinaryNumber toBinaryNumber() {
+        long[] words = new long[(length + 63) >>> 6];
+        long[] bitmap = new long[CHUNK_WORDS];
+        for (int i = 0; i < size; i++) {
+            Arrays.fill(bitmap, 0);
+            containers[i].toBitmap(bitmap);
+            int offset = keys[i] * CHUNK_WORDS;
+            System.arraycopy(bitmap, 0, words, offset, Math.min(CHUNK_WORDS, words.length - offset));
+        }
+        return BinaryNumber.fromWords(words, length);
+    }
+
+    public String toString() {
+        return toBinaryNumber().toString();
+    }
+
+    /**
+     * Converts a digit index into a bit position counted from the least
+     * significant end.
+     * 
+     * @param index the digit index
+     * @return bit position
+     */
+    private int toPosition(int index) {
+        if (index < 0 || index >= length) {
+            throw new IllegalArgumentException("index is out of bounds");
+        }
+        return length - 1 - index;
+    }
+
+    /**
+     * Finds the container slot for a key.
+     * 
+     * @param key the high 16 bits of a position
+     * @return the slot, or -(insertion point) - 1 if absent
+     */
+    private int findKey(char key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    /**
+     * Adds a container after all existing ones.
+     */
+    private void append(char key, Container c) {
+        insert(size, key, c);
+    }
+
+    /**
+     * Inserts a container at a slot, keeping keys sorted.
+     */
+    private void insert(int slot, char key, Container c) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, 2 * size);
+            containers = Arrays.copyOf(containers, 2 * size);
+        }
+        System.arraycopy(keys, slot, keys, slot + 1, size - slot);
+        System.arraycopy(containers, slot, containers, slot + 1, size - slot);
+        keys[slot] = key;
+        containers[slot] = c;
+        size++;
+    }
+
+    /**
+     * Removes the container at a slot.
+     */
+    private void remove(int slot) {
+        System.arraycopy(keys, slot + 1, keys, slot, size - slot - 1);
+        System.arraycopy(containers, slot + 1, containers, slot, size - slot - 1);
+        size--;
+        containers[size] = null;
+    }
+
+    /**
+     * Intersects two containers.
+     * 
+     * @return the intersection, or null if it is empty
+     */
+    private static Container and(Container a, Container b) {
+        if (b instanceof ArrayContainer) {
+            Container t = a;
+            a = b;
+            b = t;
+        }
+        if (a instanceof ArrayContainer) {
+            // keep the array values that are also in the other container
+            ArrayContainer array = (ArrayContainer) a;
+            char[] kept = new char[array.cardinality];
+            int n = 0;
+            for (int i = 0; i < array.cardinality; i++) {
+                if (b.contains(array.values[i])) {
+                    kept[n++] = array.values[i];
+                }
+            }
+            return (n == 0) ? null : new ArrayContainer(Arrays.copyOf(kept, n));
+        }
+        long[] x = a.toBitmap();
+        long[] y = b.toBitmap();
+        BitKernels.and(x, y, x, CHUNK_WORDS);
+        return fromBitmap(x);
+    }
+
+    /**
+     * Unites two containers.
+     * 
+     * @return the union
+     */
+    private static Container or(Container a, Container b) {
+        if (a instanceof ArrayContainer && b instanceof ArrayContainer
+                && a.cardinality() + b.cardinality() <= ARRAY_MAX) {
+            // merge the two sorted arrays
+            char[] x = ((ArrayContainer) a).values;
+            char[] y = ((ArrayContainer) b).values;
+            int xn = a.cardinality();
+            int yn = b.cardinality();
+            char[] merged = new char[xn + yn];
+            int i = 0, j = 0, n = 0;
+            while (i < xn || j < yn) {
+                if (j == yn || (i < xn && x[i] < y[j])) {
+                    merged[n++] = x[i++];
+                } else if (i == xn || x[i] > y[j]) {
+                    merged[n++] = y[j++];
+                } else {
+                    merged[n++] = x[i++];
+                    j++;
+                }
+            }
+            return new ArrayContainer(Arrays.copyOf(merged, n));
+        }
+        long[] x = a.toBitmap();
+        b.toBitmap(x);
+        return fromBitmap(x);
+    }
+
+    /**
+     * Builds the smallest container holding the ones of a chunk bitmap.
+     * 
+     * @param bitmap 1024 words, least significant first
+     * @return the container, or null if the bitmap is all zeros
+     */
+    private static Container fromBitmap(long[] bitmap) {
+        int cardinality = 0;
+        int runs = 0;
+        long previousTop = 0;
+        for (long w : bitmap) {
+            cardinality += Long.bitCount(w);
+            // a run starts at every 1 whose lower neighbour is 0
+            runs += Long.bitCount(w & ~((w << 1) | previousTop));
+            previousTop = w >>> 63;
+        }
+        if (cardinality == 0) {
+            return null;
+        }
+
+        switch (bestKind(cardinality, runs)) {
+        case RUN:
+            char[] pairs = new char[2 * runs];
+            int n = 0;
+            for (int start = nextSetBit(bitmap, 0); start >= 0;) {
+                int end = nextClearBit(bitmap, start);
+                pairs[n++] = (char) start;
+                pairs[n++] = (char) (end - start - 1);
+                start = (end < CHUNK_BITS) ? nextSetBit(bitmap, end) : -1;
+            }
+            return new RunContainer(pairs);
+        case ARRAY:
+            char[] values = new char[cardinality];
+            int v = 0;
+            for (int w = 0; w < CHUNK_WORDS; w++) {
+                long word = bitmap[w];
+                while (word != 0) {
+                    values[v++] = (char) ((w << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values);
+        default:
+            return new BitmapContainer(bitmap.clone(), cardinality, runs);
+        }
+    }
+
+    /**
+     * Returns the first position at or after from whose bit is 1, or -1.
+     */
+    private static int nextSetBit(long[] bitmap, int from) {
+        int w = from >>> 6;
+        long word = bitmap[w] & (-1L << from);
+        while (word == 0) {
+            if (++w == CHUNK_WORDS) {
+                return -1;
+            }
+            word = bitmap[w];
+        }
+        return (w << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * Returns the first position at or after from whose bit is 0, or CHUNK_BITS.
+     */
+    private static int nextClearBit(long[] bitmap, int from) {
+        int w = from >>> 6;
+        long word = ~bitmap[w] & (-1L << from);
+        while (word == 0) {
+            if (++w == CHUNK_WORDS) {
+                return CHUNK_BITS;
+            }
+            word = ~bitmap[w];
+        }
+        return (w << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * Sets bits [from, to) of a bitmap.
+     */
+    private static void setRange(long[] bitmap, int from, int to) {
+        for (int p = from; p < to;) {
+            int w = p >>> 6;
+            int end = Math.min(to, (w + 1) << 6);
+            long mask = (end - p == 64) ? -1L : ((1L << (end - p)) - 1) << p;
+            bitmap[w] |= mask;
+            p = end;
+        }
+    }
+}
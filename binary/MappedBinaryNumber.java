@@ -0,0 +1,107 @@
+package binary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A read-only binary number that reads its bits straight out of a buffer in the
+ * format written by {@link BinaryNumber#writeTo(ByteBuffer)}. Wrapping a
+ * memory-mapped file copies nothing, so even very long numbers open at once;
+ * pages are only read in as their bits are used.
+ *
+ * This is not a BinaryNumber, whose operations all work on a long[]. Only
+ * {@link #getDigit(int)}, {@link #bitCount()} and {@link #toString()} read the
+ * mapped data in place. Arithmetic, bitwise operations, shifts and rank/select
+ * need {@link #toBinaryNumber()}, which copies every word onto the heap.
+ */
+public class MappedBinaryNumber {
+
+    private final LongBuffer words;
+    private final int length;
+
+    /**
+     * Wraps a serialized binary number starting at the buffer's position. The
+     * buffer's position is left unchanged.
+     * 
+     * @param buffer the buffer holding the header and words
+     * @throws IllegalArgumentException if the header is invalid or the buffer is
+     *                                  too short
+     */
+    public MappedBinaryNumber(ByteBuffer buffer) {
+        ByteBuffer in = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        this.length = BinaryNumber.readHeader(in);
+        int n = (length + 63) >>> 6;
+        if (in.remaining() < 8L * n) {
+            throw new IllegalArgumentException("Truncated binary number: expected " + n + " words.");
+        }
+        in.limit(in.position() + 8 * n);
+        this.words = in.slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+    }
+
+    /**
+     * Maps a serialized binary number from a file without reading it.
+     * 
+     * @param channel  the file
+     * @param position the byte offset of the header in the file
+     * @throws IOException if the file cannot be mapped
+     * @return the mapped binary number
+     */
+    public static MappedBinaryNumber map(FileChannel channel, long position) throws IOException {
+        long size = Math.min(channel.size() - position, Integer.MAX_VALUE);
+        return new MappedBinaryNumber(channel.map(FileChannel.MapMode.READ_ONLY, position, size));
+    }
+
+    /**
+     * Gets the length of the binary number.
+     * 
+     * @return length
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Gets the bit at a given index.
+     * 
+     * @param index the bit to get
+     * @return bit at index
+     */
+    public int getDigit(int index) {
+        if (index < 0 || index >= length) {
+            throw new IllegalArgumentException("index is out of bounds");
+        }
+        int position = length - 1 - index;
+        return (int) (words.get(position >>> 6) >>> position) & 1;
+    }
+
+    /**
+     * Returns the number of digits that are 1.
+     * 
+     * @return the population count
+     */
+    public long bitCount() {
+        long count = 0;
+        for (int i = 0; i < words.limit(); i++) {
+            count += Long.bitCount(words.get(i));
+        }
+        return count;
+    }
+
+    /**
+     * Copies the bits into an ordinary, writable BinaryNumber.
+     * 
+     * @return binary number with the same length and digits
+     */
+    public BinaryNumber toBinaryNumber() {
+        long[] copy = new long[words.limit()];
+        words.get(0, copy);
+        return BinaryNumber.fromWords(copy, length);
+    }
+
+    public String toString() {
+        return toBinaryNumber().toString();
+    }
+}
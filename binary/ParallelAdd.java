@@ -0,0 +1,129 @@
+package binary;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Adds packed words on the common ForkJoinPool.
+ * 
+ * The words are cut into chunks that are summed independently, each assuming
+ * no carry comes in. Every chunk then reports whether it generates a carry out
+ * and whether it would propagate a carry coming in (its sum is all ones). A
+ * parallel prefix over those pairs, run as an up-sweep and a down-sweep of the
+ * same task tree, gives each chunk its real carry in, and the chunks that get
+ * one add it in parallel.
+ */
+final class ParallelAdd {
+
+    // Chunks smaller than this are not worth a task of their own
+    private static final int MIN_CHUNK_WORDS = 1 << 12;
+
+    private ParallelAdd() {
+    }
+
+    /**
+     * Adds b[0, bWords) into a[0, n). The sum must fit in n words.
+     * 
+     * @param a      the words to add into
+     * @param b      the words to add
+     * @param bWords the number of words of b to read
+     * @param n      the number of words of a to update
+     */
+    static void add(long[] a, long[] b, int bWords, int n) {
+        int chunks = Math.max(1, Math.min(n / MIN_CHUNK_WORDS, 4 * ForkJoinPool.getCommonPoolParallelism()));
+        Chunks tree = new Chunks(a, b, bWords, n, chunks, 0, chunks);
+        ForkJoinPool.commonPool().invoke(tree);
+        ForkJoinPool.commonPool().invoke(new CarryIn(tree, false));
+    }
+
+    /**
+     * Up-sweep: sums chunks [lo, hi) with no carry in and combines their
+     * generate/propagate flags.
+     */
+    private static class Chunks extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] a;
+        private final long[] b;
+        private final int bWords;
+        private final int n;
+        private final int chunks;
+        private final int lo;
+        private final int hi;
+        private Chunks left;
+        private Chunks right;
+        private boolean generate;
+        private boolean propagate;
+
+        Chunks(long[] a, long[] b, int bWords, int n, int chunks, int lo, int hi) {
+            this.a = a;
+            this.b = b;
+            this.bWords = bWords;
+            this.n = n;
+            this.chunks = chunks;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        int from() {
+            return (int) ((long) n * lo / chunks);
+        }
+
+        int to() {
+            return (int) ((long) n * hi / chunks);
+        }
+
+        protected void compute() {
+            if (hi - lo == 1) {
+                long carry = 0;
+                long all = -1L;
+                for (int i = from(); i < to(); i++) {
+                    long x = a[i];
+                    long y = (i < bWords) ? b[i] : 0;
+                    long s = x + y + carry;
+                    carry = ((x & y) | ((x | y) & ~s)) >>> 63;
+                    a[i] = s;
+                    all &= s;
+                }
+                generate = carry != 0;
+                propagate = all == -1L;
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            left = new Chunks(a, b, bWords, n, chunks, lo, mid);
+            right = new Chunks(a, b, bWords, n, chunks, mid, hi);
+            invokeAll(left, right);
+            generate = right.generate || (right.propagate && left.generate);
+            propagate = left.propagate && right.propagate;
+        }
+    }
+
+    /**
+     * Down-sweep: hands each chunk its carry in and adds it.
+     */
+    private static class CarryIn extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Chunks node;
+        private final boolean carry;
+
+        CarryIn(Chunks node, boolean carry) {
+            this.node = node;
+            this.carry = carry;
+        }
+
+        protected void compute() {
+            if (node.left == null) {
+                if (carry) {
+                    long[] a = node.a;
+                    for (int i = node.from(); i < node.to() && ++a[i] == 0; i++) {
+                        // the carry ripples on while words wrap to zero
+                    }
+                }
+                return;
+            }
+            boolean middle = node.left.generate || (node.left.propagate && carry);
+            invokeAll(new CarryIn(node.left, carry), new CarryIn(node.right, middle));
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package binary;
+
+/**
+ * Rank and select tables over a packed word array.
+ * 
+ * Ones are counted in two levels: a running total before every superblock of
+ * 4096 bits, and a count relative to the superblock before every block of 512
+ * bits. Rank then costs two table reads and at most seven popcounts. For select
+ * the superblock of every 4096th one is also recorded, which narrows the binary
+ * search over superblocks to a small range. The tables take about 5% of the
+ * space of the bits they index.
+ * 
+ * Positions here are counted from the least significant bit of words[0];
+ * {@link BinaryNumber} converts to and from digit indices.
+ */
+final class RankSelectIndex {
+
+    private static final int WORDS_PER_BLOCK = 8;
+    private static final int WORDS_PER_SUPER = 64;
+    private static final int BLOCKS_PER_SUPER = WORDS_PER_SUPER / WORDS_PER_BLOCK;
+    private static final int SAMPLE = 4096;
+
+    private final long[] words;
+    private final int bits;
+    private final long[] superCounts;
+    private final char[] blockCounts;
+    private final int[] samples;
+    private final long ones;
+
+    /**
+     * Builds the tables. The words must not change while the index is in use.
+     * 
+     * @param words the packed words
+     * @param bits  the number of bits to index
+     */
+    RankSelectIndex(long[] words, int bits) {
+        this.words = words;
+        this.bits = bits;
+        int n = (bits + 63) >>> 6;
+        int blocks = (n + WORDS_PER_BLOCK - 1) / WORDS_PER_BLOCK;
+        int supers = (n + WORDS_PER_SUPER - 1) / WORDS_PER_SUPER;
+        superCounts = new long[supers + 1];
+        blockCounts = new char[blocks];
+
+        long total = 0;
+        int inSuper = 0;
+        for (int b = 0; b < blocks; b++) {
+            if (b % BLOCKS_PER_SUPER == 0) {
+                superCounts[b / BLOCKS_PER_SUPER] = total;
+                inSuper = 0;
+            }
+            blockCounts[b] = (char) inSuper;
+            int end = Math.min(n, (b + 1) * WORDS_PER_BLOCK);
+            for (int w = b * WORDS_PER_BLOCK; w < end; w++) {
+                inSuper += Long.bitCount(words[w]);
+            }
+            total += inSuper - blockCounts[b];
+        }
+        superCounts[supers] = total;
+        ones = total;
+
+        samples = new int[(int) ((total + SAMPLE - 1) / SAMPLE) + 1];
+        int s = 0;
+        for (int k = 0; k < samples.length - 1; k++) {
+            long target = (long) k * SAMPLE;
+            while (superCounts[s + 1] <= target) {
+                s++;
+            }
+            samples[k] = s;
+        }
+        samples[samples.length - 1] = Math.max(0, supers - 1);
+    }
+
+    /**
+     * Returns the number of ones in the whole array.
+     * 
+     * @return population count
+     */
+    long ones() {
+        return ones;
+    }
+
+    /**
+     * Counts the ones at positions [0, position).
+     * 
+     * @param position exclusive end, between 0 and the number of bits
+     * @return the number of ones before position
+     */
+    long rank(int position) {
+        if (position >= bits) {
+            return ones;
+        }
+        int w = position >>> 6;
+        int block = w / WORDS_PER_BLOCK;
+        long count = superCounts[w / WORDS_PER_SUPER] + blockCounts[block];
+        for (int i = block * WORDS_PER_BLOCK; i < w; i++) {
+            count += Long.bitCount(words[i]);
+        }
+        return count + Long.bitCount(words[w] & ((1L << position) - 1));
+    }
+
+    /**
+     * Finds the position of the one with rank j, counting from 0.
+     * 
+     * @param j the rank of the one to find, less than the number of ones
+     * @return its position
+     */
+    int select(long j) {
+        // binary search for the last superblock starting at or before rank j
+        int sample = (int) (j / SAMPLE);
+        int lo = samples[sample];
+        int hi = samples[sample + 1];
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (superCounts[mid] <= j) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        long remaining = j - superCounts[lo];
+
+        // then the block within the superblock
+        int block = lo * BLOCKS_PER_SUPER;
+        int lastBlock = Math.min(blockCounts.length, block + BLOCKS_PER_SUPER) - 1;
+        while (block < lastBlock && blockCounts[block + 1] <= remaining) {
+            block++;
+        }
+        remaining -= blockCounts[block];
+
+        // then the word within the block
+        int w = block * WORDS_PER_BLOCK;
+        int c;
+        while ((c = Long.bitCount(words[w])) <= remaining) {
+            remaining -= c;
+            w++;
+        }
+
+        long word = words[w];
+        for (; remaining > 0; remaining--) {
+            word &= word - 1;
+        }
+        return (w << 6) + Long.numberOfTrailingZeros(word);
+    }
+}
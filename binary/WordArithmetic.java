@@ -0,0 +1,365 @@
+package binary;
+
+import java.util.Arrays;
+
+/**
+ * Unsigned arithmetic on magnitudes stored as packed <code>long</code> words,
+ * least significant word first. Arrays may carry zero words at the top; every
+ * method looks only at the significant ones.
+ */
+final class WordArithmetic {
+
+    // Below this many words in the shorter operand Karatsuba costs more than it saves
+    static final int KARATSUBA_THRESHOLD = 40;
+
+    private static final long LOW = 0xFFFFFFFFL;
+
+    private WordArithmetic() {
+    }
+
+    /**
+     * Returns the number of words up to and including the highest nonzero one.
+     * 
+     * @param x the words
+     * @return significant length
+     */
+    static int significant(long[] x) {
+        int n = x.length;
+        while (n > 0 && x[n - 1] == 0) {
+            n--;
+        }
+        return n;
+    }
+
+    /**
+     * Multiplies two magnitudes. The product has as many words as both
+     * operands together.
+     * 
+     * @return a * b
+     */
+    static long[] multiply(long[] a, long[] b) {
+        int an = significant(a);
+        int bn = significant(b);
+        long[] product = new long[Math.max(1, an + bn)];
+        if (an == 0 || bn == 0) {
+            return product;
+        }
+        if (Math.min(an, bn) < KARATSUBA_THRESHOLD) {
+            schoolbook(a, an, b, bn, product);
+        } else {
+            karatsuba(a, an, b, bn, product);
+        }
+        return product;
+    }
+
+    /**
+     * Adds a[0, an) * b[0, bn) into an all-zero product, one word of a at a time.
+     */
+    private static void schoolbook(long[] a, int an, long[] b, int bn, long[] product) {
+        for (int i = 0; i < an; i++) {
+            long x = a[i];
+            long carry = 0;
+            for (int j = 0; j < bn; j++) {
+                long y = b[j];
+                long lo = x * y;
+                long hi = unsignedMultiplyHigh(x, y);
+                long s = lo + product[i + j];
+                if (Long.compareUnsigned(s, lo) < 0) {
+                    hi++;
+                }
+                long t = s + carry;
+                if (Long.compareUnsigned(t, s) < 0) {
+                    hi++;
+                }
+                product[i + j] = t;
+                carry = hi;
+            }
+            product[i + bn] = carry;
+        }
+    }
+
+    /**
+     * Splits both operands at half the longer one and multiplies with three
+     * half-size products instead of four:
+     * (a1 B + a0)(b1 B + b0) = z2 B^2 + ((a0 + a1)(b0 + b1) - z2 - z0) B + z0.
+     */
+    private static void karatsuba(long[] a, int an, long[] b, int bn, long[] product) {
+        int half = (Math.max(an, bn) + 1) / 2;
+        long[] a0 = Arrays.copyOf(a, Math.min(an, half));
+        long[] a1 = (an > half) ? Arrays.copyOfRange(a, half, an) : new long[0];
+        long[] b0 = Arrays.copyOf(b, Math.min(bn, half));
+        long[] b1 = (bn > half) ? Arrays.copyOfRange(b, half, bn) : new long[0];
+
+        long[] z0 = multiply(a0, b0);
+        long[] z2 = multiply(a1, b1);
+        long[] z1 = multiply(add(a0, a1), add(b0, b1));
+        subtractInPlace(z1, z0);
+        subtractInPlace(z1, z2);
+
+        addInPlace(product, z0, 0);
+        addInPlace(product, z1, half);
+        addInPlace(product, z2, 2 * half);
+    }
+
+    /**
+     * Returns the high 64 bits of the unsigned 128-bit product x * y.
+     */
+    static long unsignedMultiplyHigh(long x, long y) {
+        return Math.multiplyHigh(x, y) + ((x >> 63) & y) + ((y >> 63) & x);
+    }
+
+    /**
+     * @return a + b, one word longer than the longer operand
+     */
+    static long[] add(long[] a, long[] b) {
+        long[] sum = Arrays.copyOf(a, Math.max(a.length, b.length) + 1);
+        addInPlace(sum, b, 0);
+        return sum;
+    }
+
+    /**
+     * Adds x, shifted up by <code>shift</code> words, into r. The sum must fit in r.
+     */
+    static void addInPlace(long[] r, long[] x, int shift) {
+        int xn = significant(x);
+        long carry = 0;
+        int i = 0;
+        for (; i < xn; i++) {
+            long a = r[i + shift];
+            long b = x[i];
+            long s = a + b + carry;
+            carry = ((a & b) | ((a | b) & ~s)) >>> 63;
+            r[i + shift] = s;
+        }
+        for (i += shift; carry != 0 && i < r.length; i++) {
+            r[i]++;
+            carry = (r[i] == 0) ? 1 : 0;
+        }
+    }
+
+    /**
+     * Subtracts y from x in place. x must be at least y.
+     */
+    static void subtractInPlace(long[] x, long[] y) {
+        int yn = significant(y);
+        long borrow = 0;
+        int i = 0;
+        for (; i < yn; i++) {
+            long a = x[i];
+            long b = y[i];
+            long d = a - b - borrow;
+            borrow = ((~a & b) | (~(a ^ b) & d)) >>> 63;
+            x[i] = d;
+        }
+        for (; borrow != 0 && i < x.length; i++) {
+            borrow = (x[i] == 0) ? 1 : 0;
+            x[i]--;
+        }
+    }
+
+    /**
+     * Compares two magnitudes.
+     * 
+     * @return negative, zero or positive as a is less than, equal to or greater
+     *         than b
+     */
+    static int compare(long[] a, long[] b) {
+        int an = significant(a);
+        int bn = significant(b);
+        if (an != bn) {
+            return Integer.compare(an, bn);
+        }
+        for (int i = an - 1; i >= 0; i--) {
+            if (a[i] != b[i]) {
+                return Long.compareUnsigned(a[i], b[i]);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Divides two magnitudes with Knuth's algorithm D on 32-bit digits, which
+     * keeps every intermediate product inside a long.
+     * 
+     * @throws ArithmeticException if the divisor is zero
+     * @return {quotient, remainder}
+     */
+    static long[][] divmod(long[] u, long[] v) {
+        int[] divisor = toDigits(v);
+        int n = significantDigits(divisor);
+        if (n == 0) {
+            throw new ArithmeticException("Division by zero.");
+        }
+        int[] dividend = toDigits(u);
+        int m = significantDigits(dividend);
+        if (m < n) {
+            return new long[][] { new long[1], Arrays.copyOf(u, Math.max(1, significant(u))) };
+        }
+
+        int[] q = new int[m - n + 1];
+        int[] r;
+        if (n == 1) {
+            long d = divisor[0] & LOW;
+            long rem = 0;
+            for (int j = m - 1; j >= 0; j--) {
+                long num = (rem << 32) | (dividend[j] & LOW);
+                q[j] = (int) Long.divideUnsigned(num, d);
+                rem = Long.remainderUnsigned(num, d);
+            }
+            r = new int[] { (int) rem };
+        } else {
+            // normalize so the top divisor digit has its high bit set
+            int s = Integer.numberOfLeadingZeros(divisor[n - 1]);
+            int[] vn = shiftDigitsLeft(divisor, n, s, n);
+            int[] un = shiftDigitsLeft(dividend, m, s, m + 1);
+            long top = vn[n - 1] & LOW;
+            long next = vn[n - 2] & LOW;
+
+            for (int j = m - n; j >= 0; j--) {
+                // estimate the quotient digit from the top two dividend digits
+                long num = ((un[j + n] & LOW) << 32) | (un[j + n - 1] & LOW);
+                long qhat = Long.divideUnsigned(num, top);
+                long rhat = Long.remainderUnsigned(num, top);
+                while (qhat > LOW || Long.compareUnsigned(qhat * next, (rhat << 32) | (un[j + n - 2] & LOW)) > 0) {
+                    qhat--;
+                    rhat += top;
+                    if (rhat > LOW) {
+                        break;
+                    }
+                }
+
+                // multiply and subtract
+                long k = 0;
+                long t;
+                for (int i = 0; i < n; i++) {
+                    long p = qhat * (vn[i] & LOW);
+                    t = (un[i + j] & LOW) - k - (p & LOW);
+                    un[i + j] = (int) t;
+                    k = (p >>> 32) - (t >> 32);
+                }
+                t = (un[j + n] & LOW) - k;
+                un[j + n] = (int) t;
+
+                q[j] = (int) qhat;
+                if (t < 0) {
+                    // the estimate was one too large, add the divisor back
+                    q[j]--;
+                    k = 0;
+                    for (int i = 0; i < n; i++) {
+                        t = (un[i + j] & LOW) + (vn[i] & LOW) + k;
+                        un[i + j] = (int) t;
+                        k = t >>> 32;
+                    }
+                    un[j + n] += (int) k;
+                }
+            }
+
+            // unnormalize the remainder
+            r = new int[n];
+            for (int i = 0; i < n; i++) {
+                long pair = ((un[i + 1] & LOW) << 32) | (un[i] & LOW);
+                r[i] = (int) (pair >>> s);
+            }
+        }
+        return new long[][] { fromDigits(q), fromDigits(r) };
+    }
+
+    /**
+     * Computes base^exponent mod modulus by square-and-multiply. Products are
+     * reduced with Barrett's method, which replaces each division by two
+     * multiplications against a reciprocal computed once, so every step runs at
+     * the speed of {@link #multiply(long[], long[])}.
+     * 
+     * @throws ArithmeticException if the modulus is zero
+     * @return the power, with as many words as the modulus
+     */
+    static long[] modPow(long[] base, long[] exponent, long[] modulus) {
+        int k = significant(modulus);
+        if (k == 0) {
+            throw new ArithmeticException("Modulus is zero.");
+        }
+        // mu = floor(B^(2k) / modulus), where B = 2^64
+        long[] power = new long[2 * k + 1];
+        power[2 * k] = 1;
+        long[] mu = divmod(power, modulus)[0];
+
+        long[] result = new long[k];
+        result[0] = 1;
+        result = barrett(result, modulus, k, mu);
+        long[] b = divmod(base, modulus)[1];
+
+        int bits = significant(exponent) * 64;
+        for (int i = bits - 1; i >= 0; i--) {
+            result = barrett(multiply(result, result), modulus, k, mu);
+            if (((exponent[i >>> 6] >>> i) & 1) == 1) {
+                result = barrett(multiply(result, b), modulus, k, mu);
+            }
+        }
+        return Arrays.copyOf(result, k);
+    }
+
+    /**
+     * Reduces x, which must be less than B^(2k), modulo m.
+     */
+    private static long[] barrett(long[] x, long[] m, int k, long[] mu) {
+        int xn = significant(x);
+        long[] q = (xn > k - 1) ? Arrays.copyOfRange(x, k - 1, xn) : new long[0];
+        q = multiply(q, mu);
+        q = (q.length > k + 1) ? Arrays.copyOfRange(q, k + 1, q.length) : new long[0];
+        long[] qm = multiply(q, m);
+
+        long[] r = Arrays.copyOf(x, Math.max(x.length, qm.length));
+        subtractInPlace(r, qm);
+        while (compare(r, m) >= 0) {
+            subtractInPlace(r, m);
+        }
+        return Arrays.copyOf(r, k);
+    }
+
+    /**
+     * Splits words into 32-bit digits, least significant first.
+     */
+    private static int[] toDigits(long[] x) {
+        int n = significant(x);
+        int[] digits = new int[2 * n];
+        for (int i = 0; i < n; i++) {
+            digits[2 * i] = (int) x[i];
+            digits[2 * i + 1] = (int) (x[i] >>> 32);
+        }
+        return digits;
+    }
+
+    /**
+     * Joins 32-bit digits back into words.
+     */
+    private static long[] fromDigits(int[] digits) {
+        long[] x = new long[Math.max(1, (digits.length + 1) / 2)];
+        for (int i = 0; i < digits.length; i++) {
+            x[i / 2] |= (digits[i] & LOW) << (32 * (i & 1));
+        }
+        return x;
+    }
+
+    private static int significantDigits(int[] digits) {
+        int n = digits.length;
+        while (n > 0 && digits[n - 1] == 0) {
+            n--;
+        }
+        return n;
+    }
+
+    /**
+     * Shifts the first n digits left by s bits (0 <= s < 32) into a new array.
+     */
+    private static int[] shiftDigitsLeft(int[] digits, int n, int s, int size) {
+        int[] shifted = new int[size];
+        for (int i = 0; i < n; i++) {
+            long wide = (digits[i] & LOW) << s;
+            shifted[i] |= (int) wide;
+            if (i + 1 < size) {
+                shifted[i + 1] |= (int) (wide >>> 32);
+            }
+        }
+        return shifted;
+    }
+}
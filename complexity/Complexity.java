@@ -7,6 +7,24 @@ package complexity;
 
 public class Complexity {
 
+    private final OperationSink sink;
+
+    /**
+     * Creates a Complexity whose operations print to System.out.
+     */
+    public Complexity() {
+        this(OperationSink.console());
+    }
+
+    /**
+     * Creates a Complexity that reports its operations to a sink.
+     * 
+     * @param sink receives every operation
+     */
+    public Complexity(OperationSink sink) {
+        this.sink = sink;
+    }
+
     /**
      * Has time complexity O(n^2).
      * 
@@ -16,7 +34,7 @@ public class Complexity {
         int counter = 0;
         for (int i = 0; i < n; i++) {
             for (int j = 0; j < n; j++) {
-                System.out.println("Operation " + counter);
+                sink.operation(counter);
                 counter++;
             }
         }
@@ -29,8 +47,8 @@ public class Complexity {
      */
     public void method2(int n) {
         int counter = 0;
-        for (int i = 0; i < n; i *= 2) {
-            System.out.println("Operation " + counter);
+        for (int i = 1; i < n; i *= 2) {
+            sink.operation(counter);
             counter++;
         }
     }
@@ -43,8 +61,8 @@ public class Complexity {
     public void method3(int n) {
         int counter = 0;
         for (int i = 0; i < n; i++) {
-            for (int j = 0; j < n; j *= 2) {
-                System.out.println("Operation " + counter);
+            for (int j = 1; j < n; j *= 2) {
+                sink.operation(counter);
                 counter++;
             }
         }
@@ -60,7 +78,7 @@ public class Complexity {
         for (int i = 0; i < n; i++) {
             for (int j = 0; j < n; j++) {
                 for (int k = 0; k < n; k++) {
-                    System.out.println("Operation " + counter);
+                    sink.operation(counter);
                     counter++;
                 }
             }
@@ -75,7 +93,7 @@ public class Complexity {
     public void method5(int n) {
         int counter = 0;
         for (int i = 2; i < n; i *= 2) {
-            System.out.println("Operation " + counter);
+            sink.operation(counter);
             counter++;
         }
     }
@@ -0,0 +1,360 @@
+package complexity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+
+/**
+ * Measures how a workload grows with n and fits the measurements against the
+ * usual growth classes.
+ *
+ * Each n is timed over a few repeats, keeping the fastest run. Operations are
+ * whatever the workload reports to {@link #sink()}; a run that goes past the
+ * operation budget is stopped and the sweep ends there. For every growth class
+ * f the harness finds the constant c that best fits c * f(n) to the
+ * measurements and reports the class with the smallest relative error.
+ */
+public class ComplexityHarness {
+
+    /**
+     * Candidate growth classes.
+     */
+    public enum Growth {
+        LOG_LOG_N("log log n"), LOG_N("log n"), N("n"), N_LOG_N("n log n"), N_SQUARED("n^2"), N_CUBED("n^3"),
+        EXPONENTIAL("2^n");
+
+        private final String label;
+
+        Growth(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Evaluates the growth function at n.
+         *
+         * @param n the input size
+         * @return f(n)
+         */
+        public double apply(double n) {
+            double log = Math.log(Math.max(n, 2)) / Math.log(2);
+            switch (this) {
+            case LOG_LOG_N:
+                return Math.log(Math.max(log, 2)) / Math.log(2);
+            case LOG_N:
+                return log;
+            case N:
+                return n;
+            case N_LOG_N:
+                return n * log;
+            case N_SQUARED:
+                return n * n;
+            case N_CUBED:
+                return n * n * n;
+            default:
+                return Math.pow(2, n);
+            }
+        }
+
+        public String toString() {
+            return label;
+        }
+    }
+
+    /**
+     * One measurement.
+     */
+    public static class Point {
+        public final int n;
+        public final long nanos;
+        public final long operations;
+
+        public Point(int n, long nanos, long operations) {
+            this.n = n;
+            this.nanos = nanos;
+            this.operations = operations;
+        }
+    }
+
+    /**
+     * The measurements of one workload and the growth class that fits them best.
+     */
+    public static class Report {
+        public final String name;
+        public final List<Point> points = new ArrayList<>();
+        /** The first n that went over the operation budget, or -1 */
+        public int exceededAt = -1;
+        public Growth best;
+        /** How much better the best class fits than the runner-up, from 0 to 1 */
+        public double confidence;
+        /** Root mean square relative error of the best fit */
+        public double error;
+        /** Whether the fit used operation counts (true) or times (false) */
+        public boolean fittedOperations;
+
+        public Report(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * Thrown once a run has performed more operations than the budget.
+     */
+    private static class BudgetExceeded extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        BudgetExceeded() {
+            super(null, null, false, false);
+        }
+    }
+
+    private final int repeats;
+    private final long operationBudget;
+
+    // Operations reported to sink() during the current run
+    private long operations;
+
+    // Results of IntFunction workloads land here so the JIT cannot drop the call
+    private volatile Object blackhole;
+
+    /**
+     * Creates a harness.
+     *
+     * @param repeats         runs per n; the fastest one is kept
+     * @param operationBudget operations allowed in a single run
+     */
+    public ComplexityHarness(int repeats, long operationBudget) {
+        if (repeats <= 0 || operationBudget <= 0) {
+            throw new IllegalArgumentException("repeats and operationBudget must be greater than 0.");
+        }
+        this.repeats = repeats;
+        this.operationBudget = operationBudget;
+    }
+
+    /**
+     * Runs a workload for every n and fits the results.
+     *
+     * @param name     the name used in reports
+     * @param workload the code to measure
+     * @param ns       the input sizes, in increasing order
+     * @return the report
+     */
+    public Report sweep(String name, IntConsumer workload, int... ns) {
+        Report report = new Report(name);
+        for (int n : ns) {
+            long best = Long.MAX_VALUE;
+            long operations = 0;
+            try {
+                for (int r = 0; r < repeats; r++) {
+                    this.operations = 0;
+                    long start = System.nanoTime();
+                    try {
+                        workload.accept(n);
+                    } finally {
+                        long elapsed = System.nanoTime() - start;
+                        best = Math.min(best, elapsed);
+                        operations = this.operations;
+                    }
+                }
+            } catch (BudgetExceeded e) {
+                report.exceededAt = n;
+                break;
+            }
+            report.points.add(new Point(n, best, operations));
+        }
+        fit(report);
+        return report;
+    }
+
+    /**
+     * Returns a sink that counts operations towards the current run and stops the
+     * run once it goes past the budget.
+     *
+     * @return the counting sink
+     */
+    public OperationSink sink() {
+        return counter -> {
+            if (++operations > operationBudget) {
+                throw new BudgetExceeded();
+            }
+        };
+    }
+
+    /**
+     * Runs a workload that returns a value for every n and fits the results.
+     *
+     * @param name     the name used in reports
+     * @param workload the code to measure
+     * @param ns       the input sizes, in increasing order
+     * @return the report
+     */
+    public Report sweepFunction(String name, IntFunction<?> workload, int... ns) {
+        return sweep(name, n -> blackhole = workload.apply(n), ns);
+    }
+
+    /**
+     * Fits every growth class to a report's points and records the best one.
+     * Operation counts are used when every point has some, otherwise times.
+     *
+     * @param report the report to complete
+     */
+    static void fit(Report report) {
+        List<Point> points = report.points;
+        if (points.size() < 2) {
+            return;
+        }
+        boolean operations = true;
+        for (Point p : points) {
+            operations &= p.operations > 0;
+        }
+        report.fittedOperations = operations;
+
+        double bestError = Double.MAX_VALUE;
+        double secondError = Double.MAX_VALUE;
+        for (Growth g : Growth.values()) {
+            // minimize sum (1 - c f / y)^2, i.e. c = sum(f / y) / sum((f / y)^2)
+            double sum = 0, sumSquares = 0;
+            for (Point p : points) {
+                double ratio = g.apply(p.n) / y(p, operations);
+                sum += ratio;
+                sumSquares += ratio * ratio;
+            }
+            double c = sum / sumSquares;
+            double squaredError = 0;
+            for (Point p : points) {
+                double residual = 1 - c * g.apply(p.n) / y(p, operations);
+                squaredError += residual * residual;
+            }
+            double error = Math.sqrt(squaredError / points.size());
+            if (!Double.isFinite(error)) {
+                continue;
+            }
+            if (error < bestError) {
+                secondError = bestError;
+                bestError = error;
+                report.best = g;
+            } else if (error < secondError) {
+                secondError = error;
+            }
+        }
+        report.error = bestError;
+        report.confidence = (secondError == Double.MAX_VALUE || secondError == 0) ? 0
+                : (secondError - bestError) / secondError;
+    }
+
+    private static double y(Point p, boolean operations) {
+        return operations ? p.operations : Math.max(1, p.nanos);
+    }
+
+    /**
+     * Formats reports as CSV, one line per point, with the fit repeated on each
+     * line.
+     *
+     * @param reports the reports
+     * @return CSV text with a header line
+     */
+    public static String toCsv(List<Report> reports) {
+        StringBuilder b = new StringBuilder("workload,n,nanos,operations,best,confidence,error,exceeded_at\n");
+        for (Report r : reports) {
+            for (Point p : r.points) {
+                b.append(r.name).append(',').append(p.n).append(',').append(p.nanos).append(',')
+                        .append(p.operations).append(',').append(r.best == null ? "" : r.best).append(',')
+                        .append(format(r.confidence)).append(',').append(format(r.error)).append(',')
+                        .append(r.exceededAt).append('\n');
+            }
+        }
+        return b.toString();
+    }
+
+    /**
+     * Formats reports as a JSON array.
+     *
+     * @param reports the reports
+     * @return JSON text
+     */
+    public static String toJson(List<Report> reports) {
+        StringBuilder b = new StringBuilder("[");
+        for (int i = 0; i < reports.size(); i++) {
+            Report r = reports.get(i);
+            b.append(i == 0 ? "\n" : ",\n");
+            b.append("  {\"workload\": ").append(quote(r.name)).append(", \"best\": ")
+                    .append(r.best == null ? "null" : "\"" + r.best + "\"").append(", \"confidence\": ")
+                    .append(format(r.confidence)).append(", \"error\": ").append(format(r.error))
+                    .append(", \"fitted\": \"").append(r.fittedOperations ? "operations" : "nanos")
+                    .append("\", \"exceededAt\": ").append(r.exceededAt).append(", \"points\": [");
+            for (int j = 0; j < r.points.size(); j++) {
+                Point p = r.points.get(j);
+                b.append(j == 0 ? "" : ", ").append("{\"n\": ").append(p.n).append(", \"nanos\": ").append(p.nanos)
+                        .append(", \"operations\": ").append(p.operations).append('}');
+            }
+            b.append("]}");
+        }
+        return b.append("\n]\n").toString();
+    }
+
+    /**
+     * Returns s as a JSON string literal.
+     */
+    static String quote(String s) {
+        StringBuilder b = new StringBuilder("\"");
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                b.append('\\').append(c);
+            } else if (c < 0x20) {
+                b.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+            } else {
+                b.append(c);
+            }
+        }
+        return b.append('"').toString();
+    }
+
+    private static String format(double d) {
+        return String.format(Locale.ROOT, "%.4f", d);
+    }
+
+    /**
+     * Returns n = 2^from, ..., 2^to.
+     */
+    static int[] powersOfTwo(int from, int to) {
+        int[] ns = new int[to - from + 1];
+        for (int i = 0; i < ns.length; i++) {
+            ns[i] = 1 << (from + i);
+        }
+        return ns;
+    }
+
+    /**
+     * Returns n = from, ..., to.
+     */
+    static int[] range(int from, int to) {
+        int[] ns = new int[to - from + 1];
+        for (int i = 0; i < ns.length; i++) {
+            ns[i] = from + i;
+        }
+        return ns;
+    }
+
+    /**
+     * Sweeps the methods of {@link Complexity} and prints the reports. Pass
+     * "json" for JSON output instead of CSV.
+     *
+     * @param args optional output format
+     */
+    public static void main(String[] args) {
+        ComplexityHarness h = new ComplexityHarness(3, 10_000_000L);
+        Complexity c = new Complexity(h.sink());
+        List<Report> reports = new ArrayList<>();
+
+        reports.add(h.sweep("method1", c::method1, powersOfTwo(4, 11)));
+        reports.add(h.sweep("method2", c::method2, powersOfTwo(4, 30)));
+        reports.add(h.sweep("method3", c::method3, powersOfTwo(4, 16)));
+        reports.add(h.sweep("method4", c::method4, powersOfTwo(2, 7)));
+        reports.add(h.sweep("method5", c::method5, powersOfTwo(4, 30)));
+        reports.add(h.sweepFunction("method6", c::method6, range(10, 22)));
+
+        System.out.print(args.length > 0 && args[0].equals("json") ? toJson(reports) : toCsv(reports));
+    }
+}
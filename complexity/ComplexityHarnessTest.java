@@ -0,0 +1,91 @@
+package complexity;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class ComplexityHarnessTest {
+
+    private static final int[] NS = ComplexityHarness.range(2, 40);
+
+    // Points whose operation counts are scale * g(n), off by up to noise either way
+    private static ComplexityHarness.Report synthetic(ComplexityHarness.Growth g, double noise, long seed) {
+        Random random = new Random(seed);
+        ComplexityHarness.Report report = new ComplexityHarness.Report(g.name());
+        for (int n : NS) {
+            double factor = 1 + noise * (2 * random.nextDouble() - 1);
+            report.points.add(new ComplexityHarness.Point(n, 1, Math.round(1e6 * g.apply(n) * factor)));
+        }
+        return report;
+    }
+
+    @Test
+    public void testFitExact() {
+        for (ComplexityHarness.Growth g : ComplexityHarness.Growth.values()) {
+            ComplexityHarness.Report report = synthetic(g, 0, 0);
+            ComplexityHarness.fit(report);
+            assertEquals(g, report.best);
+            assertTrue(report.fittedOperations);
+            assertEquals(g.toString(), 0, report.error, 1e-4);
+            assertEquals(g.toString(), 1, report.confidence, 1e-4);
+        }
+    }
+
+    @Test
+    public void testFitNoisy() {
+        for (ComplexityHarness.Growth g : ComplexityHarness.Growth.values()) {
+            ComplexityHarness.Report report = synthetic(g, 0.05, g.ordinal());
+            ComplexityHarness.fit(report);
+            assertEquals(g, report.best);
+            // uniform noise of +-5% has a root mean square of 5% / sqrt(3)
+            assertTrue(g + ": " + report.error, report.error > 0.01 && report.error < 0.05);
+            assertTrue(g + ": " + report.confidence, report.confidence > 0.5 && report.confidence < 1);
+        }
+    }
+
+    @Test
+    public void testFitTimesWithoutOperations() {
+        ComplexityHarness.Report report = new ComplexityHarness.Report("times");
+        for (int n : NS) {
+            report.points.add(new ComplexityHarness.Point(n, 7L * n * n, n == 10 ? 0 : n));
+        }
+        ComplexityHarness.fit(report);
+        assertFalse(report.fittedOperations);
+        assertEquals(ComplexityHarness.Growth.N_SQUARED, report.best);
+        assertEquals(0, report.error, 1e-9);
+    }
+
+    @Test
+    public void testFitTooFewPoints() {
+        ComplexityHarness.Report report = new ComplexityHarness.Report("one");
+        report.points.add(new ComplexityHarness.Point(4, 10, 10));
+        ComplexityHarness.fit(report);
+        assertNull(report.best);
+        assertEquals(0, report.error, 0);
+        assertEquals(0, report.confidence, 0);
+    }
+
+    @Test
+    public void testSweepCountsSinkOperations() {
+        ComplexityHarness h = new ComplexityHarness(2, 1000);
+        OperationSink sink = h.sink();
+        ComplexityHarness.Report report = h.sweep("linear", n -> {
+            for (int i = 0; i < n; i++) {
+                sink.operation(i);
+            }
+        }, 10, 100, 1000, 10000);
+        assertEquals(3, report.points.size());
+        assertEquals(1000, report.points.get(2).operations);
+        assertEquals(10000, report.exceededAt);
+        assertEquals(ComplexityHarness.Growth.N, report.best);
+    }
+
+    @Test
+    public void testJsonEscapesNames() {
+        ComplexityHarness.Report report = new ComplexityHarness.Report("say \"hi\"\\\n");
+        String json = ComplexityHarness.toJson(List.of(report));
+        assertTrue(json, json.contains("\"workload\": \"say \\\"hi\\\"\\\\\\u000a\", "));
+    }
+}
@@ -0,0 +1,32 @@
+package complexity;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts operations. The count is a LongAdder, so one sink can be shared by
+ * methods running on several threads without contending on a single field.
+ */
+public class CountingSink implements OperationSink {
+
+    private final LongAdder count = new LongAdder();
+
+    public void operation(long counter) {
+        count.increment();
+    }
+
+    /**
+     * Returns the number of operations seen since creation or the last reset.
+     *
+     * @return the count
+     */
+    public long count() {
+        return count.sum();
+    }
+
+    /**
+     * Sets the count back to zero.
+     */
+    public void reset() {
+        count.reset();
+    }
+}
@@ -0,0 +1,51 @@
+package complexity;
+
+import java.io.PrintStream;
+
+/**
+ * Receives every "operation" performed by the methods of {@link Complexity}.
+ */
+@FunctionalInterface
+public interface OperationSink {
+
+    /**
+     * Discards every operation, so only the loops themselves are timed.
+     */
+    OperationSink NONE = counter -> {
+    };
+
+    /**
+     * Called once per operation.
+     *
+     * @param counter the number of operations the method performed before this
+     *                one
+     */
+    void operation(long counter);
+
+    /**
+     * Prints every operation to System.out, as the methods originally did.
+     *
+     * @return the printing sink
+     */
+    static OperationSink console() {
+        return counter -> System.out.println("Operation " + counter);
+    }
+
+    /**
+     * Prints only every <code>every</code>-th operation.
+     *
+     * @param out   the stream to print to
+     * @param every the sampling interval
+     * @return the sampling sink
+     */
+    static OperationSink sampled(PrintStream out, long every) {
+        if (every <= 0) {
+            throw new IllegalArgumentException("every must be greater than 0.");
+        }
+        return counter -> {
+            if (counter % every == 0) {
+                out.println("Operation " + counter);
+            }
+        };
+    }
+}
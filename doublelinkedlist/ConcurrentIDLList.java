@@ -0,0 +1,232 @@
+package doublelinkedlist;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * A thread-safe double-linked list with the operations of {@link IDLList} at
+ * both ends. Adding and removing at either end are lock-free: the list is a
+ * ConcurrentLinkedDeque underneath, so threads never block each other, and any
+ * number of producers and consumers can share it.
+ *
+ * Positional access is weakly consistent. get(index) walks from the head and
+ * sees a state of the list at some point during the walk. It never throws
+ * ConcurrentModificationException, but under concurrent changes it may miss or
+ * repeat an element. It is O(index). size() is exact while no change is in
+ * progress and an estimate while changes are being made.
+ *
+ * Null elements are not allowed.
+ *
+ * @param <E> the element type
+ */
+public class ConcurrentIDLList<E> implements Iterable<E> {
+
+    private final ConcurrentLinkedDeque<E> deque = new ConcurrentLinkedDeque<>();
+    // kept apart from the deque, whose own size() walks every node
+    private final LongAdder size = new LongAdder();
+
+    /**
+     * Adds an element at the head
+     *
+     * @throws NullPointerException if elem is null
+     * @param elem the element to be added
+     * @return true
+     */
+    public boolean add(E elem) {
+        deque.addFirst(elem);
+        size.increment();
+        return true;
+    }
+
+    /**
+     * Adds elem as the new last element of the list (i.e. at the tail). It always
+     * returns true.
+     *
+     * @throws NullPointerException if elem is null
+     * @param elem
+     * @return true
+     */
+    public boolean append(E elem) {
+        deque.addLast(elem);
+        size.increment();
+        return true;
+    }
+
+    /**
+     * Returns the object at position index from the head, as seen by a walk from
+     * the head.
+     *
+     * @throws IndexOutOfBoundsException if the list has no such position
+     * @param index
+     * @return
+     */
+    public E get(int index) {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException("index: " + index);
+        }
+        int i = 0;
+        for (E elem : deque) {
+            if (i++ == index) {
+                return elem;
+            }
+        }
+        throw new IndexOutOfBoundsException("index: " + index);
+    }
+
+    /**
+     * Returns the object at the head.
+     *
+     * @throws IllegalStateException if the list is empty
+     * @return
+     */
+    public E getHead() {
+        E elem = deque.peekFirst();
+        if (elem == null)
+            throw new IllegalStateException();
+        return elem;
+    }
+
+    /**
+     * Returns the object at the tail.
+     *
+     * @throws IllegalStateException if the list is empty
+     * @return
+     */
+    public E getLast() {
+        E elem = deque.peekLast();
+        if (elem == null)
+            throw new IllegalStateException();
+        return elem;
+    }
+
+    /**
+     * Returns the size of the list.
+     *
+     * @return
+     */
+    public int size() {
+        return (int) Math.max(0, size.sum());
+    }
+
+    /**
+     * Removes and returns the element at the head
+     *
+     * @throws IllegalStateException if there is no such element.
+     * @return
+     */
+    public E remove() {
+        E elem = poll();
+        if (elem == null) {
+            throw new IllegalStateException();
+        }
+        return elem;
+    }
+
+    /**
+     * Removes and returns the element at the tail.
+     *
+     * @throws IllegalStateException is there is no such element
+     * @return
+     */
+    public E removeLast() {
+        E elem = pollLast();
+        if (elem == null) {
+            throw new IllegalStateException();
+        }
+        return elem;
+    }
+
+    /**
+     * Removes and returns the element at the head, or returns null if the list
+     * is empty. With several consumers this is the way to take work, since
+     * checking size() first and then calling remove() can race.
+     *
+     * @return
+     */
+    public E poll() {
+        E elem = deque.pollFirst();
+        if (elem != null) {
+            size.decrement();
+        }
+        return elem;
+    }
+
+    /**
+     * Removes and returns the element at the tail, or returns null if the list
+     * is empty.
+     *
+     * @return
+     */
+    public E pollLast() {
+        E elem = deque.pollLast();
+        if (elem != null) {
+            size.decrement();
+        }
+        return elem;
+    }
+
+    /**
+     * Removes the first occurrence of the element is in the list and returns true.
+     * Returns false if the element is not in the list.
+     *
+     * @param elem
+     * @return
+     */
+    public boolean remove(E elem) {
+        if (deque.removeFirstOccurrence(elem)) {
+            size.decrement();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if the element is in the list.
+     *
+     * @param elem
+     * @return
+     */
+    public boolean contains(E elem) {
+        return deque.contains(elem);
+    }
+
+    /**
+     * Returns a weakly consistent iterator from head to tail. Removing through it
+     * is not supported.
+     *
+     * @return
+     */
+    public Iterator<E> iterator() {
+        Iterator<E> it = deque.iterator();
+        return new Iterator<E>() {
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            public E next() {
+                return it.next();
+            }
+        };
+    }
+
+    /**
+     * Returns a sequential stream over a weakly consistent view of the list.
+     *
+     * @return
+     */
+    public Stream<E> stream() {
+        return deque.stream();
+    }
+
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        s.append("[ ");
+        for (E elem : deque) {
+            s.append(elem.toString() + ", ");
+        }
+        s.append("]");
+        return s.toString();
+    }
+}
@@ -0,0 +1,102 @@
+package doublelinkedlist;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class ConcurrentIDLListTest {
+
+    @Test
+    public void testSequential() {
+        ConcurrentIDLList<Integer> list = new ConcurrentIDLList<>();
+        for (int i = 0; i < 5; i++) {
+            list.add(i);
+            list.append(10 + i);
+        }
+
+        assertEquals(10, list.size());
+        assertEquals("[ 4, 3, 2, 1, 0, 10, 11, 12, 13, 14, ]", list.toString());
+        assertTrue(4 == list.getHead());
+        assertTrue(14 == list.getLast());
+        assertTrue(0 == list.get(4));
+        assertTrue(list.remove(Integer.valueOf(0)));
+        assertFalse(list.contains(0));
+        assertTrue(4 == list.remove());
+        assertTrue(14 == list.removeLast());
+        assertEquals(7, list.size());
+
+        try {
+            list.get(7);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            assertEquals(1, 1);
+        }
+
+        while (list.poll() != null) {
+        }
+        try {
+            list.remove();
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals(1, 1);
+        }
+    }
+
+    @Test
+    public void testProducersAndConsumers() throws InterruptedException, ExecutionException {
+        ConcurrentIDLList<Integer> list = new ConcurrentIDLList<>();
+        int producers = 4;
+        int perProducer = 20000;
+        ConcurrentHashMap<Integer, Boolean> taken = new ConcurrentHashMap<>();
+        AtomicLong sum = new AtomicLong();
+
+        ExecutorService executor = Executors.newFixedThreadPool(2 * producers);
+        // a failed assertion in a worker is rethrown by its future
+        List<Future<?>> workers = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int first = p * perProducer;
+            workers.add(executor.submit(() -> {
+                for (int i = first; i < first + perProducer; i++) {
+                    if ((i & 1) == 0) {
+                        list.add(i);
+                    } else {
+                        list.append(i);
+                    }
+                }
+            }));
+            workers.add(executor.submit(() -> {
+                for (int n = 0; n < perProducer / 2;) {
+                    Integer value = (n & 1) == 0 ? list.poll() : list.pollLast();
+                    if (value != null) {
+                        assertNull(taken.put(value, true));
+                        sum.addAndGet(value);
+                        n++;
+                    }
+                }
+            }));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+
+        for (Integer value : list) {
+            assertNull(taken.put(value, true));
+            sum.addAndGet(value);
+        }
+        long total = (long) producers * perProducer;
+        assertEquals(total / 2, list.size());
+        assertEquals(total, taken.size());
+        assertEquals(total * (total - 1) / 2, sum.get());
+    }
+}
@@ -1,10 +1,25 @@
 package doublelinkedlist;
 
+import java.util.AbstractCollection;
+import java.util.AbstractSequentialList;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-public class IDLList<E> {
+public class IDLList<E> implements Iterable<E> {
 
-    private class Node<F> {
+    private static class Node<F> {
 
         private F data;
         private Node<F> next;
@@ -36,19 +51,128 @@ public class IDLList<E> {
 
     }
 
+    /**
+     * A node that also carries its links in the tree index. Lists indexed by a
+     * ring use plain nodes and save the 24 bytes these take.
+     */
+    private static class TreeNode<F> extends Node<F> implements IndexTree.Node<TreeNode<F>> {
+
+        private TreeNode<F> left;
+        private TreeNode<F> right;
+        private TreeNode<F> parent;
+        private int size;
+        private int priority;
+        private int weight = 1;
+
+        public TreeNode(F data, Node<F> next, Node<F> prev) {
+            super(data, next, prev);
+        }
+
+        public TreeNode<F> getLeft() {
+            return left;
+        }
+
+        public void setLeft(TreeNode<F> left) {
+            this.left = left;
+        }
+
+        public TreeNode<F> getRight() {
+            return right;
+        }
+
+        public void setRight(TreeNode<F> right) {
+            this.right = right;
+        }
+
+        public TreeNode<F> getParent() {
+            return parent;
+        }
+
+        public void setParent(TreeNode<F> parent) {
+            this.parent = parent;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public void setSize(int size) {
+            this.size = size;
+        }
+
+        public int getPriority() {
+            return priority;
+        }
+
+        public void setPriority(int priority) {
+            this.priority = priority;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        public void setWeight(int weight) {
+            this.weight = weight;
+        }
+    }
+
     private Node<E> head;
     private Node<E> tail;
     private int size;
-    private ArrayList<Node<E>> indices;
+    private NodeIndex<Node<E>> indices;
+    // value -> its node, or an ArrayList of nodes when the value occurs more
+    // than once; null unless enableValueIndex has been called
+    private HashMap<E, Object> values;
+    // structural changes so far, so that iterators can fail fast
+    private int modCount;
 
     /**
-     * Creates an empty double-linked list with fast accessing.
+     * How the list finds the node at a position.
+     */
+    public enum Index {
+        /**
+         * A balanced tree over the nodes: getting, adding and removing at any
+         * position take O(log n).
+         */
+        TREE,
+        /**
+         * A circular buffer of the nodes: getting is O(1) and adding or removing
+         * at the head or the tail amortized O(1), but anywhere else O(n). Suits
+         * deque-style use.
+         */
+        RING
+    }
+
+    /**
+     * Creates an empty double-linked list with fast accessing through a tree
+     * index.
      */
     public IDLList() {
+        this(Index.TREE);
+    }
+
+    /**
+     * Creates an empty double-linked list with fast accessing through the given
+     * kind of index.
+     * 
+     * @param index
+     */
+    @SuppressWarnings("unchecked")
+    public IDLList(Index index) {
         head = null;
         tail = null;
         size = 0;
-        indices = new ArrayList<Node<E>>();
+        // a tree index only ever sees the TreeNodes made by newNode
+        indices = (index == Index.RING) ? new RingIndex<Node<E>>()
+                : (NodeIndex<Node<E>>) (NodeIndex<?>) new IndexTree<TreeNode<E>>();
+    }
+
+    /**
+     * Creates a node of the kind the index needs.
+     */
+    private Node<E> newNode(E elem, Node<E> next, Node<E> prev) {
+        return (indices instanceof IndexTree) ? new TreeNode<E>(elem, next, prev) : new Node<E>(elem, next, prev);
     }
 
     /**
@@ -59,18 +183,20 @@ public class IDLList<E> {
      */
     public boolean add(E elem) {
         if (head == null) { // Empty list
-            head = new Node<E>(elem);
+            head = newNode(elem, null, null);
             tail = head;
         } else if (head == tail) { // Singleton list
-            head = new Node<E>(elem, tail, null);
+            head = newNode(elem, tail, null);
             tail.prev = head;
         } else {
-            head = new Node<E>(elem, head, null);
+            head = newNode(elem, head, null);
             head.next.prev = head;
         }
 
-        indices.add(0, head);
+        indices.insert(0, head);
+        indexValue(head);
         size++;
+        modCount++;
         return true;
     }
 
@@ -90,18 +216,32 @@ public class IDLList<E> {
 
         if (index == 0) { // add to the beginning of the list
             add(elem);
+        } else if (index == size) { // add to the end of the list
+            append(elem);
         } else {
             // somewhere between the beginning and the end
-            Node<E> current = indices.get(index);
-            Node<E> newCurrent = new Node<>(elem, current, current.prev);
-            current.prev.next = newCurrent;
-            current.prev = newCurrent;
-            size++;
-            indices.add(index, newCurrent);
+            linkBefore(indices.get(index), index, elem);
         }
         return true;
     }
 
+    /**
+     * Inserts elem just before a node that is not the head.
+     * 
+     * @param current the node that will follow elem
+     * @param index   the position of current
+     * @param elem
+     */
+    private void linkBefore(Node<E> current, int index, E elem) {
+        Node<E> newCurrent = newNode(elem, current, current.prev);
+        current.prev.next = newCurrent;
+        current.prev = newCurrent;
+        size++;
+        modCount++;
+        indices.insert(index, newCurrent);
+        indexValue(newCurrent);
+    }
+
     /**
      * Adds elem as the new last element of the list (i.e. at the tail). It always
      * returns true.
@@ -111,22 +251,87 @@ public class IDLList<E> {
      */
     public boolean append(E elem) {
         if (head == null) { // empty list
-            head = new Node<E>(elem);
+            head = newNode(elem, null, null);
             tail = head;
             size++;
-            return indices.add(head);
+            modCount++;
+            indices.insert(0, head);
+            indexValue(head);
+            return true;
         }
 
         if (head == tail) { // singleton list
-            tail = new Node<E>(elem, null, head);
+            tail = newNode(elem, null, head);
             head.next = tail;
             size++;
-            return indices.add(tail);
+            modCount++;
+            indices.insert(1, tail);
+            indexValue(tail);
+            return true;
         }
-        tail.next = new Node<E>(elem, null, tail);
+        tail.next = newNode(elem, null, tail);
         tail = tail.next;
+        indices.insert(size, tail);
+        indexValue(tail);
         size++;
-        return indices.add(tail);
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Inserts the elements of a collection, in its iteration order, so that the
+     * first one ends up at position index. The new nodes are chained together,
+     * spliced in once and indexed in one go, which is O(k + log n) with a tree
+     * index and O(n + k) with a ring instead of k separate adds. Returns true if
+     * the list changed.
+     * 
+     * @throws IndexOutOfBoundsException
+     * @param index
+     * @param elems
+     * @return
+     */
+    public boolean addAll(int index, Collection<? extends E> elems) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("index: " + index);
+        }
+        if (elems.isEmpty()) {
+            return false;
+        }
+
+        ArrayList<Node<E>> nodes = new ArrayList<>(elems.size());
+        Node<E> last = null;
+        for (E elem : elems) {
+            Node<E> node = newNode(elem, null, last);
+            if (last != null) {
+                last.next = node;
+            }
+            nodes.add(node);
+            last = node;
+        }
+        Node<E> first = nodes.get(0);
+
+        Node<E> succ = (index == size) ? null : indices.get(index);
+        Node<E> pred = (succ == null) ? tail : succ.prev;
+        first.prev = pred;
+        last.next = succ;
+        if (pred == null) {
+            head = first;
+        } else {
+            pred.next = first;
+        }
+        if (succ == null) {
+            tail = last;
+        } else {
+            succ.prev = last;
+        }
+
+        indices.insertAll(index, nodes);
+        for (Node<E> node : nodes) {
+            indexValue(node);
+        }
+        size += nodes.size();
+        modCount++;
+        return true;
     }
 
     /**
@@ -182,20 +387,7 @@ public class IDLList<E> {
             throw new IllegalStateException();
         }
 
-        if (head == tail) {
-            Node<E> temp = head;
-            head = null;
-            tail = null;
-            size--;
-            indices.clear();
-            return temp.data;
-        }
-
-        Node<E> temp = head;
-        head = head.next;
-        indices.remove(0);
-        size--;
-        return temp.data;
+        return unlink(head);
     }
 
     /**
@@ -209,21 +401,7 @@ public class IDLList<E> {
             throw new IllegalStateException();
         }
 
-        if (head == tail) {
-            Node<E> temp = tail;
-            head = null;
-            tail = null;
-            size = 0;
-            indices.clear();
-            return temp.data;
-        }
-
-        Node<E> temp = tail;
-        tail = tail.prev;
-        tail.next = null;
-        indices.remove(size - 1);
-        size--;
-        return temp.data;
+        return unlink(tail);
     }
 
     /**
@@ -234,59 +412,829 @@ public class IDLList<E> {
      * @return
      */
     public E removeAt(int index) {
-        if (index < 0 || index > size) {
+        if (index < 0 || index >= size) {
             throw new IllegalStateException("index: " + index);
         }
 
-        if (index == 0) { // remove first element
-            return remove();
+        return unlink(indices.get(index));
+    }
+
+    /**
+     * Removes the elements from position from, inclusive, to position to,
+     * exclusive. The range is cut out of the list once and out of the index in
+     * one go, which is O(k + log n) with a tree index and O(n + k) with a ring
+     * instead of k separate removes.
+     * 
+     * @throws IndexOutOfBoundsException unless 0 <= from <= to <= size
+     * @param from
+     * @param to
+     */
+    public void removeRange(int from, int to) {
+        if (from < 0 || from > to || to > size) {
+            throw new IndexOutOfBoundsException("from: " + from + ", to: " + to);
+        }
+        if (from == to) {
+            return;
         }
 
-        if (index == size - 1) { // remove last element
-            return removeLast();
+        Node<E> first = indices.get(from);
+        Node<E> last = first;
+        unindexValue(first);
+        for (int i = from + 1; i < to; i++) {
+            last = last.next;
+            unindexValue(last);
         }
 
-        // remove an element between the first and the last
-        Node<E> current = indices.remove(index);
-        current.prev.next = current.next;
-        current.next.prev = current.prev;
+        Node<E> pred = first.prev;
+        Node<E> succ = last.next;
+        if (pred == null) {
+            head = succ;
+        } else {
+            pred.next = succ;
+        }
+        if (succ == null) {
+            tail = pred;
+        } else {
+            succ.prev = pred;
+        }
+        first.prev = null;
+        last.next = null;
+
+        indices.removeRange(from, to);
+        size -= to - from;
+        modCount++;
+    }
+
+    /**
+     * Unlinks a node from the list and its indexes and returns its element.
+     * 
+     * @param node
+     * @return
+     */
+    private E unlink(Node<E> node) {
+        if (node.prev == null) {
+            head = node.next;
+        } else {
+            node.prev.next = node.next;
+        }
+        if (node.next == null) {
+            tail = node.prev;
+        } else {
+            node.next.prev = node.prev;
+        }
+        node.next = null;
+        node.prev = null;
+        indices.remove(node);
+        unindexValue(node);
         size--;
-        return current.data;
+        modCount++;
+        return node.data;
     }
 
     /**
      * Removes the first occurrence of the element is in the list and returns true.
-     * Returns false if the element is not in the list.
+     * Returns false if the element is not in the list. Expected O(log n) with the
+     * value index and a tree index, O(n) otherwise.
      * 
      * @param elem
      * @return
      */
     public boolean remove(E elem) {
+        Node<E> node = first(elem);
+        if (node == null) {
+            return false;
+        }
+        unlink(node);
+        return true;
+    }
 
-        if (elem.equals(head.data)) { // remove the first element
-            remove();
-            return true;
+    /**
+     * Returns true if the element is in the list. Expected O(1) with the value
+     * index, O(n) without.
+     * 
+     * @param elem
+     * @return
+     */
+    public boolean contains(E elem) {
+        if (values != null) {
+            return values.containsKey(elem);
         }
+        return first(elem) != null;
+    }
 
-        if (elem.equals(tail.data)) { // remove the last element
-            removeLast();
-            return true;
+    /**
+     * Returns the position of the first occurrence of the element, or -1 if it is
+     * not in the list. Expected O(log n) with the value index and a tree index,
+     * O(n) otherwise.
+     * 
+     * @param elem
+     * @return
+     */
+    public int indexOf(E elem) {
+        Node<E> node = first(elem);
+        return (node == null) ? -1 : indices.rank(node);
+    }
+
+    /**
+     * Starts keeping a hash index from values to their nodes, so that contains is
+     * expected O(1) and, with a tree index, indexOf and remove(elem) expected
+     * O(log n) instead of scanning the list. The index is kept up to date by every operation from
+     * then on and costs one hash entry per distinct value. Elements must not
+     * change their hashCode while in the list. Does nothing if the index is
+     * already on.
+     */
+    public void enableValueIndex() {
+        if (values != null) {
+            return;
         }
+        values = new HashMap<>();
+        for (Node<E> current = head; current != null; current = current.next) {
+            indexValue(current);
+        }
+    }
 
-        Node<E> current = head;
-        int index = 0;
-        while (current != null) {
-            if (current.data.equals(elem)) {
-                current.prev.next = current.next;
-                current.next.prev = current.prev;
-                indices.remove(index);
-                size--;
-                return true;
+    /**
+     * Adds a node to the value index, if there is one.
+     */
+    @SuppressWarnings("unchecked")
+    private void indexValue(Node<E> node) {
+        if (values == null) {
+            return;
+        }
+        Object found = values.putIfAbsent(node.data, node);
+        if (found == null) {
+            return;
+        }
+        if (found instanceof ArrayList) {
+            ((ArrayList<Node<E>>) found).add(node);
+        } else {
+            ArrayList<Node<E>> nodes = new ArrayList<>(2);
+            nodes.add((Node<E>) found);
+            nodes.add(node);
+            values.put(node.data, nodes);
+        }
+    }
+
+    /**
+     * Removes a node from the value index, if there is one.
+     */
+    @SuppressWarnings("unchecked")
+    private void unindexValue(Node<E> node) {
+        if (values == null) {
+            return;
+        }
+        Object found = values.get(node.data);
+        if (found == node) {
+            values.remove(node.data);
+        } else if (found instanceof ArrayList) {
+            ArrayList<Node<E>> nodes = (ArrayList<Node<E>>) found;
+            nodes.remove(node);
+            if (nodes.size() == 1) {
+                values.put(node.data, nodes.get(0));
+            }
+        }
+    }
+
+    /**
+     * Returns the first node holding the element, or null.
+     */
+    @SuppressWarnings("unchecked")
+    private Node<E> first(E elem) {
+        if (values == null) {
+            for (Node<E> current = head; current != null; current = current.next) {
+                if (elem.equals(current.data)) {
+                    return current;
+                }
             }
+            return null;
+        }
+        Object found = values.get(elem);
+        if (!(found instanceof ArrayList)) {
+            return (Node<E>) found;
+        }
+        // the same value in several places, the earliest one wins
+        Node<E> first = null;
+        int firstRank = Integer.MAX_VALUE;
+        for (Node<E> node : (ArrayList<Node<E>>) found) {
+            int rank = indices.rank(node);
+            if (rank < firstRank) {
+                first = node;
+                firstRank = rank;
+            }
+        }
+        return first;
+    }
+
+    /**
+     * Returns an iterator from head to tail. It fails fast: changing the list
+     * other than through the iterator makes it throw
+     * ConcurrentModificationException.
+     * 
+     * @return
+     */
+    public Iterator<E> iterator() {
+        return new ListItr(0);
+    }
+
+    /**
+     * Returns a fail-fast list iterator starting at the head. Removing at the
+     * cursor unlinks the node in place, O(1) for the list plus the cost of
+     * updating the index.
+     * 
+     * @return
+     */
+    public ListIterator<E> listIterator() {
+        return new ListItr(0);
+    }
+
+    /**
+     * Returns a fail-fast list iterator whose first call to next returns the
+     * element at index.
+     * 
+     * @throws IndexOutOfBoundsException
+     * @param index
+     * @return
+     */
+    public ListIterator<E> listIterator(int index) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("index: " + index);
+        }
+        return new ListItr(index);
+    }
+
+    /**
+     * Returns a spliterator that knows its exact size and splits in half through
+     * the position index, so parallel streams divide the list without copying
+     * it.
+     * 
+     * @return
+     */
+    public Spliterator<E> spliterator() {
+        return new NodeSpliterator(head, 0, size, modCount);
+    }
+
+    /**
+     * Returns a sequential stream from head to tail.
+     * 
+     * @return
+     */
+    public Stream<E> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Returns a parallel stream over the list.
+     * 
+     * @return
+     */
+    public Stream<E> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /**
+     * Returns a java.util.List view of this list. The view follows the List
+     * contract, so its add(elem) appends at the tail, unlike add on this class.
+     * Changes through either are seen by both.
+     * 
+     * @return
+     */
+    public List<E> asList() {
+        return new ListView();
+    }
+
+    /**
+     * Returns a java.util.Deque view of this list, with the head as its first
+     * element. Changes through either are seen by both.
+     * 
+     * @return
+     */
+    public Deque<E> asDeque() {
+        return new DequeView();
+    }
+
+    /**
+     * Returns a java.util.List view of the positions from, inclusive, to to,
+     * exclusive. Changes through the view are seen by this list, and its addAll,
+     * clear and removeRange use the bulk operations of this list. Changing this
+     * list other than through the view makes the view throw
+     * ConcurrentModificationException.
+     * 
+     * @throws IndexOutOfBoundsException unless 0 <= from <= to <= size
+     * @param from
+     * @param to
+     * @return
+     */
+    public List<E> subList(int from, int to) {
+        if (from < 0 || from > to || to > size) {
+            throw new IndexOutOfBoundsException("from: " + from + ", to: " + to);
+        }
+        return new SubList(null, from, to - from);
+    }
+
+    private class ListItr implements ListIterator<E> {
+        // the node next() returns, null at the end
+        private Node<E> next;
+        private Node<E> lastReturned;
+        private int nextIndex;
+        private int expectedModCount = modCount;
+
+        public ListItr(int index) {
+            next = (index == size) ? null : indices.get(index);
+            nextIndex = index;
+        }
+
+        public boolean hasNext() {
+            return nextIndex < size;
+        }
+
+        public E next() {
+            checkForComodification();
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = next;
+            next = next.next;
+            nextIndex++;
+            return lastReturned.data;
+        }
+
+        public boolean hasPrevious() {
+            return nextIndex > 0;
+        }
+
+        public E previous() {
+            checkForComodification();
+            if (!hasPrevious()) {
+                throw new NoSuchElementException();
+            }
+            next = (next == null) ? tail : next.prev;
+            lastReturned = next;
+            nextIndex--;
+            return lastReturned.data;
+        }
+
+        public int nextIndex() {
+            return nextIndex;
+        }
+
+        public int previousIndex() {
+            return nextIndex - 1;
+        }
+
+        public void remove() {
+            checkForComodification();
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            Node<E> lastNext = lastReturned.next;
+            unlink(lastReturned);
+            if (next == lastReturned) { // after previous()
+                next = lastNext;
+            } else { // after next()
+                nextIndex--;
+            }
+            lastReturned = null;
+            expectedModCount = modCount;
+        }
+
+        public void set(E elem) {
+            checkForComodification();
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            unindexValue(lastReturned);
+            lastReturned.data = elem;
+            indexValue(lastReturned);
+        }
+
+        public void add(E elem) {
+            checkForComodification();
+            lastReturned = null;
+            if (next == null) {
+                append(elem);
+            } else if (next == head) {
+                IDLList.this.add(elem);
+            } else {
+                linkBefore(next, nextIndex, elem);
+            }
+            nextIndex++;
+            expectedModCount = modCount;
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    private class NodeSpliterator implements Spliterator<E> {
+        private Node<E> current;
+        private int index;
+        private final int fence;
+        private final int expectedModCount;
+
+        /**
+         * Covers the positions from index up to but not including fence, current
+         * being the node at index.
+         */
+        public NodeSpliterator(Node<E> current, int index, int fence, int expectedModCount) {
+            this.current = current;
+            this.index = index;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        public boolean tryAdvance(Consumer<? super E> action) {
+            if (index >= fence) {
+                return false;
+            }
+            E elem = current.data;
             current = current.next;
             index++;
+            action.accept(elem);
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            return true;
+        }
+
+        public void forEachRemaining(Consumer<? super E> action) {
+            Node<E> n = current;
+            int i = index;
+            // the fields move first so that an exception leaves nothing to redo
+            current = null;
+            index = fence;
+            for (; i < fence; i++) {
+                action.accept(n.data);
+                n = n.next;
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        public Spliterator<E> trySplit() {
+            int lo = index;
+            int mid = (lo + fence) >>> 1;
+            if (mid <= lo) {
+                return null;
+            }
+            Spliterator<E> prefix = new NodeSpliterator(current, lo, mid, expectedModCount);
+            current = indices.get(mid);
+            index = mid;
+            return prefix;
+        }
+
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+    }
+
+    private class ListView extends AbstractSequentialList<E> {
+
+        public int size() {
+            return size;
+        }
+
+        public E get(int index) {
+            return IDLList.this.get(index);
+        }
+
+        public boolean add(E elem) {
+            return append(elem);
+        }
+
+        public E remove(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("index: " + index);
+            }
+            return removeAt(index);
+        }
+
+        public boolean addAll(Collection<? extends E> elems) {
+            return IDLList.this.addAll(size, elems);
+        }
+
+        public boolean addAll(int index, Collection<? extends E> elems) {
+            return IDLList.this.addAll(index, elems);
+        }
+
+        protected void removeRange(int from, int to) {
+            IDLList.this.removeRange(from, to);
+        }
+
+        public List<E> subList(int from, int to) {
+            return IDLList.this.subList(from, to);
+        }
+
+        public ListIterator<E> listIterator(int index) {
+            return IDLList.this.listIterator(index);
+        }
+
+        public Spliterator<E> spliterator() {
+            return IDLList.this.spliterator();
+        }
+    }
+
+    private class SubList extends AbstractSequentialList<E> {
+        // the view this one was taken from, null if taken from the list
+        private final SubList parent;
+        // the position of the first element in the list
+        private final int offset;
+        private int size;
+        // AbstractList has a modCount of its own, so the list's is spelled out
+        private int expectedModCount = IDLList.this.modCount;
+
+        public SubList(SubList parent, int offset, int size) {
+            this.parent = parent;
+            this.offset = offset;
+            this.size = size;
+        }
+
+        public int size() {
+            checkForComodification();
+            return size;
+        }
+
+        public E get(int index) {
+            checkForComodification();
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("index: " + index);
+            }
+            return IDLList.this.get(offset + index);
+        }
+
+        public boolean addAll(Collection<? extends E> elems) {
+            return addAll(size, elems);
+        }
+
+        public boolean addAll(int index, Collection<? extends E> elems) {
+            checkForComodification();
+            if (index < 0 || index > size) {
+                throw new IndexOutOfBoundsException("index: " + index);
+            }
+            int before = IDLList.this.size;
+            if (!IDLList.this.addAll(offset + index, elems)) {
+                return false;
+            }
+            changed(IDLList.this.size - before);
+            return true;
+        }
+
+        protected void removeRange(int from, int to) {
+            checkForComodification();
+            IDLList.this.removeRange(offset + from, offset + to);
+            changed(from - to);
+        }
+
+        public List<E> subList(int from, int to) {
+            checkForComodification();
+            if (from < 0 || from > to || to > size) {
+                throw new IndexOutOfBoundsException("from: " + from + ", to: " + to);
+            }
+            return new SubList(this, offset + from, to - from);
+        }
+
+        public ListIterator<E> listIterator(int index) {
+            checkForComodification();
+            if (index < 0 || index > size) {
+                throw new IndexOutOfBoundsException("index: " + index);
+            }
+            ListIterator<E> it = IDLList.this.listIterator(offset + index);
+            return new ListIterator<E>() {
+                public boolean hasNext() {
+                    return nextIndex() < size;
+                }
+
+                public E next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return it.next();
+                }
+
+                public boolean hasPrevious() {
+                    return previousIndex() >= 0;
+                }
+
+                public E previous() {
+                    if (!hasPrevious()) {
+                        throw new NoSuchElementException();
+                    }
+                    return it.previous();
+                }
+
+                public int nextIndex() {
+                    return it.nextIndex() - offset;
+                }
+
+                public int previousIndex() {
+                    return it.previousIndex() - offset;
+                }
+
+                public void remove() {
+                    it.remove();
+                    changed(-1);
+                }
+
+                public void set(E elem) {
+                    it.set(elem);
+                }
+
+                public void add(E elem) {
+                    it.add(elem);
+                    changed(1);
+                }
+            };
+        }
+
+        /**
+         * Records a change of delta elements made through this view, here and in
+         * the views it was taken from.
+         */
+        private void changed(int delta) {
+            for (SubList view = this; view != null; view = view.parent) {
+                view.size += delta;
+                view.expectedModCount = IDLList.this.modCount;
+            }
+        }
+
+        private void checkForComodification() {
+            if (IDLList.this.modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    private class DequeView extends AbstractCollection<E> implements Deque<E> {
+
+        public int size() {
+            return size;
+        }
+
+        public Iterator<E> iterator() {
+            return IDLList.this.iterator();
+        }
+
+        public Spliterator<E> spliterator() {
+            return IDLList.this.spliterator();
+        }
+
+        public Iterator<E> descendingIterator() {
+            ListIterator<E> it = new ListItr(size);
+            return new Iterator<E>() {
+                public boolean hasNext() {
+                    return it.hasPrevious();
+                }
+
+                public E next() {
+                    return it.previous();
+                }
+
+                public void remove() {
+                    it.remove();
+                }
+            };
+        }
+
+        public void addFirst(E elem) {
+            IDLList.this.add(elem);
+        }
+
+        public void addLast(E elem) {
+            append(elem);
+        }
+
+        public boolean offerFirst(E elem) {
+            return IDLList.this.add(elem);
+        }
+
+        public boolean offerLast(E elem) {
+            return append(elem);
+        }
+
+        public E removeFirst() {
+            if (head == null) {
+                throw new NoSuchElementException();
+            }
+            return IDLList.this.remove();
+        }
+
+        public E removeLast() {
+            if (tail == null) {
+                throw new NoSuchElementException();
+            }
+            return IDLList.this.removeLast();
+        }
+
+        public E pollFirst() {
+            return (head == null) ? null : IDLList.this.remove();
+        }
+
+        public E pollLast() {
+            return (tail == null) ? null : IDLList.this.removeLast();
+        }
+
+        public E getFirst() {
+            if (head == null) {
+                throw new NoSuchElementException();
+            }
+            return head.data;
+        }
+
+        public E getLast() {
+            if (tail == null) {
+                throw new NoSuchElementException();
+            }
+            return tail.data;
+        }
+
+        public E peekFirst() {
+            return (head == null) ? null : head.data;
+        }
+
+        public E peekLast() {
+            return (tail == null) ? null : tail.data;
+        }
+
+        // null can only get in through the List view, so it is looked for by hand
+        private Node<E> firstNull() {
+            for (Node<E> current = head; current != null; current = current.next) {
+                if (current.data == null) {
+                    return current;
+                }
+            }
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        public boolean removeFirstOccurrence(Object o) {
+            if (o != null) {
+                return IDLList.this.remove((E) o);
+            }
+            Node<E> node = firstNull();
+            if (node == null) {
+                return false;
+            }
+            unlink(node);
+            return true;
+        }
+
+        public boolean removeLastOccurrence(Object o) {
+            for (Node<E> current = tail; current != null; current = current.prev) {
+                if (Objects.equals(o, current.data)) {
+                    unlink(current);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public boolean add(E elem) {
+            return append(elem);
+        }
+
+        public boolean offer(E elem) {
+            return append(elem);
+        }
+
+        public E remove() {
+            return removeFirst();
+        }
+
+        public E poll() {
+            return pollFirst();
+        }
+
+        public E element() {
+            return getFirst();
+        }
+
+        public E peek() {
+            return peekFirst();
+        }
+
+        public void push(E elem) {
+            addFirst(elem);
+        }
+
+        public E pop() {
+            return removeFirst();
+        }
+
+        public boolean remove(Object o) {
+            return removeFirstOccurrence(o);
+        }
+
+        @SuppressWarnings("unchecked")
+        public boolean contains(Object o) {
+            return (o == null) ? firstNull() != null : IDLList.this.contains((E) o);
         }
-        return false;
     }
 
     public String toString() {
@@ -351,10 +1299,8 @@ public class IDLList<E> {
         System.out.println();
 
         int deleteAmount = dll.size();
-        for (int i = deleteAmount - 1; i >= 0; i--) {
-            System.out.println("removed: " + dll.removeAt(i));
-            // System.out.println(dll);
-        }
+        dll.removeRange(0, deleteAmount);
+        System.out.println("removed: " + deleteAmount);
 
         for (int i = 100; i < 111; i++) {
             dll.append(i);
@@ -2,6 +2,16 @@ package doublelinkedlist;
 
 import doublelinkedlist.IDLList;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Random;
+import java.util.stream.Collectors;
+
 import static org.junit.Assert.*;
 import org.junit.Test;
 
@@ -234,4 +244,315 @@ public class IDLListTest {
         assertEquals("[ 9, 8, 7, 6, 5, 4, 3, 2, 1, 0, ]", dll.toString());
     }
 
-}
\ No newline at end of file
+
+    @Test
+    public void testRandomPositionalOperations() {
+        randomPositionalOperations(new IDLList<>());
+    }
+
+    @Test
+    public void testRingIndex() {
+        IDLList<Integer> dll = new IDLList<>(IDLList.Index.RING);
+        for (int i = 0; i < 100; i++) {
+            dll.add(i);
+            dll.append(i);
+        }
+        assertTrue(99 == dll.get(0));
+        assertTrue(99 == dll.get(199));
+        assertTrue(0 == dll.get(99));
+        assertTrue(99 == dll.remove());
+        assertTrue(99 == dll.removeLast());
+        assertEquals(198, dll.size());
+
+        randomPositionalOperations(new IDLList<>(IDLList.Index.RING));
+    }
+
+    private void randomPositionalOperations(IDLList<Integer> dll) {
+        ArrayList<Integer> expected = new ArrayList<>();
+        Random random = new Random(284);
+
+        for (int i = 0; i < 20000; i++) {
+            int op = random.nextInt(6);
+            if (op == 0) {
+                dll.add(i);
+                expected.add(0, i);
+            } else if (op == 1) {
+                dll.append(i);
+                expected.add(i);
+            } else if (op == 2) {
+                int index = random.nextInt(expected.size() + 1);
+                dll.add(index, i);
+                expected.add(index, i);
+            } else if (expected.isEmpty()) {
+                continue;
+            } else if (op == 3) {
+                int index = random.nextInt(expected.size());
+                assertEquals(expected.remove(index), dll.removeAt(index));
+            } else if (op == 4) {
+                assertEquals(expected.remove(0), dll.remove());
+            } else {
+                assertEquals(expected.remove(expected.size() - 1), dll.removeLast());
+            }
+            assertEquals(expected.size(), dll.size());
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), dll.get(i));
+        }
+    }
+
+    @Test
+    public void testContainsAndIndexOf() {
+        IDLList<Integer> dll = new IDLList<>();
+        for (int i = 0; i < 10; i++) {
+            dll.append(i % 5);
+        }
+
+        assertTrue(dll.contains(3));
+        assertFalse(dll.contains(7));
+        assertEquals(3, dll.indexOf(3));
+        assertEquals(-1, dll.indexOf(7));
+
+        dll.enableValueIndex();
+        assertTrue(dll.contains(3));
+        assertFalse(dll.contains(7));
+        assertEquals(3, dll.indexOf(3));
+
+        assertTrue(dll.remove(3));
+        assertEquals(7, dll.indexOf(3));
+        assertTrue(dll.remove(3));
+        assertFalse(dll.contains(3));
+        assertFalse(dll.remove(3));
+        assertEquals("[ 0, 1, 2, 4, 0, 1, 2, 4, ]", dll.toString());
+    }
+
+    @Test
+    public void testRandomValueIndex() {
+        randomValueIndex(new IDLList<>());
+        randomValueIndex(new IDLList<>(IDLList.Index.RING));
+    }
+
+    private void randomValueIndex(IDLList<Integer> dll) {
+        dll.enableValueIndex();
+        ArrayList<Integer> expected = new ArrayList<>();
+        Random random = new Random(284);
+
+        for (int i = 0; i < 20000; i++) {
+            Integer value = random.nextInt(500);
+            int op = random.nextInt(5);
+            if (op == 0) {
+                dll.add(value);
+                expected.add(0, value);
+            } else if (op == 1) {
+                int index = random.nextInt(expected.size() + 1);
+                dll.add(index, value);
+                expected.add(index, value);
+            } else if (op == 2) {
+                assertEquals(expected.remove(value), dll.remove(value));
+            } else if (op == 3 && !expected.isEmpty()) {
+                int index = random.nextInt(expected.size());
+                assertEquals(expected.remove(index), dll.removeAt(index));
+            } else {
+                assertEquals(expected.contains(value), dll.contains(value));
+                assertEquals(expected.indexOf(value), dll.indexOf(value));
+            }
+            assertEquals(expected.size(), dll.size());
+        }
+    }
+
+    @Test
+    public void testListIterator() {
+        IDLList<Integer> dll = new IDLList<>();
+        dll.enableValueIndex();
+        for (int i = 0; i < 10; i++) {
+            dll.append(i);
+        }
+
+        int expected = 0;
+        for (int value : dll) {
+            assertEquals(expected++, value);
+        }
+
+        ListIterator<Integer> it = dll.listIterator();
+        while (it.hasNext()) {
+            int value = it.next();
+            if (value % 2 == 0) {
+                it.remove();
+            } else if (value == 5) {
+                it.set(50);
+                it.add(55);
+            }
+        }
+        assertEquals("[ 1, 3, 50, 55, 7, 9, ]", dll.toString());
+        assertEquals(3, dll.indexOf(55));
+        assertFalse(dll.contains(5));
+
+        it = dll.listIterator(dll.size());
+        assertTrue(9 == it.previous());
+        it.remove();
+        it.add(8);
+        assertTrue(8 == dll.getLast());
+        assertTrue(8 == it.previous());
+        assertTrue(7 == it.previous());
+
+        Iterator<Integer> failing = dll.iterator();
+        failing.next();
+        dll.append(100);
+        try {
+            failing.next();
+            fail();
+        } catch (ConcurrentModificationException e) {
+            assertEquals(1, 1);
+        }
+    }
+
+    @Test
+    public void testViews() {
+        IDLList<Integer> dll = new IDLList<>();
+        List<Integer> list = dll.asList();
+        list.add(1);
+        list.add(2);
+        list.add(0, 0);
+        assertEquals(List.of(0, 1, 2), list);
+        assertEquals("[ 0, 1, 2, ]", dll.toString());
+        list.remove(Integer.valueOf(1));
+        list.set(0, 10);
+        assertEquals(List.of(10, 2), list);
+
+        Deque<Integer> deque = dll.asDeque();
+        deque.push(5);
+        deque.offerLast(6);
+        assertTrue(5 == deque.peekFirst());
+        assertTrue(6 == deque.pollLast());
+        assertTrue(5 == deque.pop());
+        assertEquals(List.of(10, 2), new ArrayList<>(deque));
+        deque.clear();
+        assertEquals(0, dll.size());
+        assertNull(deque.pollFirst());
+    }
+
+    @Test
+    public void testDequeViewNulls() {
+        IDLList<Integer> dll = new IDLList<>();
+        List<Integer> list = dll.asList();
+        list.addAll(Arrays.asList(1, null, 2, null, 3));
+        Deque<Integer> deque = dll.asDeque();
+
+        assertTrue(deque.contains(null));
+        assertTrue(deque.removeLastOccurrence(null));
+        assertEquals(Arrays.asList(1, null, 2, 3), list);
+        assertTrue(deque.removeFirstOccurrence(null));
+        assertEquals(List.of(1, 2, 3), list);
+        assertFalse(deque.contains(null));
+        assertFalse(deque.removeFirstOccurrence(null));
+        assertFalse(deque.removeLastOccurrence(null));
+        assertTrue(deque.removeLastOccurrence(2));
+        assertEquals(List.of(1, 3), list);
+    }
+
+    @Test
+    public void testRangeOperations() {
+        IDLList<Integer> dll = new IDLList<>();
+        for (int i = 0; i < 10; i++) {
+            dll.append(i);
+        }
+        assertTrue(dll.addAll(3, List.of(100, 101, 102)));
+        assertFalse(dll.addAll(0, List.of()));
+        assertEquals("[ 0, 1, 2, 100, 101, 102, 3, 4, 5, 6, 7, 8, 9, ]", dll.toString());
+        dll.removeRange(1, 5);
+        assertEquals("[ 0, 102, 3, 4, 5, 6, 7, 8, 9, ]", dll.toString());
+        assertTrue(102 == dll.get(1));
+
+        List<Integer> sub = dll.subList(2, 6);
+        assertEquals(List.of(3, 4, 5, 6), sub);
+        sub.addAll(1, List.of(-1, -2));
+        sub.remove(Integer.valueOf(5));
+        assertEquals(List.of(3, -1, -2, 4, 6), sub);
+        sub.subList(1, 3).clear();
+        assertEquals(List.of(3, 4, 6), sub);
+        assertEquals("[ 0, 102, 3, 4, 6, 7, 8, 9, ]", dll.toString());
+
+        dll.append(10);
+        try {
+            sub.size();
+            fail();
+        } catch (ConcurrentModificationException e) {
+            assertEquals(1, 1);
+        }
+        try {
+            dll.removeRange(5, 4);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            assertEquals(1, 1);
+        }
+    }
+
+    @Test
+    public void testRandomRangeOperations() {
+        randomRangeOperations(new IDLList<>());
+        randomRangeOperations(new IDLList<>(IDLList.Index.RING));
+        IDLList<Integer> indexed = new IDLList<>();
+        indexed.enableValueIndex();
+        randomRangeOperations(indexed);
+    }
+
+    private void randomRangeOperations(IDLList<Integer> dll) {
+        ArrayList<Integer> expected = new ArrayList<>();
+        Random random = new Random(284);
+
+        for (int i = 0; i < 3000; i++) {
+            int op = random.nextInt(4);
+            if (op == 0) {
+                ArrayList<Integer> elems = new ArrayList<>();
+                for (int k = random.nextInt(20); k > 0; k--) {
+                    elems.add(random.nextInt(50));
+                }
+                int index = random.nextInt(expected.size() + 1);
+                dll.addAll(index, elems);
+                expected.addAll(index, elems);
+            } else if (op == 1) {
+                int from = random.nextInt(expected.size() + 1);
+                int to = from + random.nextInt(Math.min(10, expected.size() - from) + 1);
+                dll.removeRange(from, to);
+                expected.subList(from, to).clear();
+            } else if (op == 2) {
+                int from = random.nextInt(expected.size() + 1);
+                int to = from + random.nextInt(expected.size() - from + 1);
+                List<Integer> sub = dll.subList(from, to);
+                List<Integer> expectedSub = expected.subList(from, to);
+                assertEquals(expectedSub, sub);
+                if (!sub.isEmpty()) {
+                    int index = random.nextInt(sub.size());
+                    assertEquals(expectedSub.remove(index), sub.remove(index));
+                }
+                sub.add(i);
+                expectedSub.add(i);
+                assertEquals(expectedSub, sub);
+            } else {
+                int elem = random.nextInt(50);
+                assertEquals(expected.indexOf(elem), dll.indexOf(elem));
+            }
+            assertEquals(expected.size(), dll.size());
+        }
+        assertEquals(expected, dll.asList());
+        ListIterator<Integer> backwards = dll.listIterator(dll.size());
+        for (int i = expected.size() - 1; i >= 0; i--) {
+            assertEquals(expected.get(i), backwards.previous());
+        }
+    }
+
+    @Test
+    public void testStreams() {
+        IDLList<Integer> dll = new IDLList<>();
+        ArrayList<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            dll.append(i);
+            expected.add(i);
+        }
+
+        assertEquals(expected, dll.stream().collect(Collectors.toList()));
+        assertEquals(expected, dll.parallelStream().collect(Collectors.toList()));
+        assertEquals(expected.stream().mapToLong(i -> i).sum(),
+                dll.parallelStream().mapToLong(i -> i).sum());
+        assertEquals(100000, dll.spliterator().getExactSizeIfKnown());
+    }
+}
@@ -0,0 +1,437 @@
+package doublelinkedlist;
+
+import java.util.ArrayDeque;
+import java.util.List;
+
+/**
+ * Positional index over the nodes of a list, kept as an implicit treap: a
+ * binary tree ordered by list position, where each node stores the size of its
+ * subtree and a random priority that keeps the tree balanced in expectation.
+ * Looking up, inserting and removing by position are all O(log n), and the
+ * parent pointers give the position of any node in O(log n) as well. Inserting
+ * or removing k consecutive nodes at once is O(k + log n).
+ *
+ * Each node covers <code>weight</code> consecutive positions, 1 unless set
+ * otherwise, so a node can also stand for a block of elements. The tree links
+ * live in the nodes themselves, so indexing costs no extra objects.
+ *
+ * @param <N> the node type
+ */
+class IndexTree<N extends IndexTree.Node<N>> implements NodeIndex<N> {
+
+    /**
+     * Tree links carried by every indexed node. A node class with no other
+     * superclass can extend {@link Links} rather than implement these itself.
+     */
+    interface Node<N extends Node<N>> {
+        N getLeft();
+
+        void setLeft(N left);
+
+        N getRight();
+
+        void setRight(N right);
+
+        N getParent();
+
+        void setParent(N parent);
+
+        int getSize();
+
+        void setSize(int size);
+
+        int getPriority();
+
+        void setPriority(int priority);
+
+        int getWeight();
+
+        void setWeight(int weight);
+    }
+
+    /**
+     * The tree links as fields.
+     */
+    static class Links<N extends Node<N>> implements Node<N> {
+        N left;
+        N right;
+        N parent;
+        int size;
+        int priority;
+        int weight = 1;
+
+        public N getLeft() {
+            return left;
+        }
+
+        public void setLeft(N left) {
+            this.left = left;
+        }
+
+        public N getRight() {
+            return right;
+        }
+
+        public void setRight(N right) {
+            this.right = right;
+        }
+
+        public N getParent() {
+            return parent;
+        }
+
+        public void setParent(N parent) {
+            this.parent = parent;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public void setSize(int size) {
+            this.size = size;
+        }
+
+        public int getPriority() {
+            return priority;
+        }
+
+        public void setPriority(int priority) {
+            this.priority = priority;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        public void setWeight(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    private N root;
+    private int seed = 0x2545F491;
+
+    // results of split, to avoid allocating a pair
+    private N splitLeft;
+    private N splitRight;
+
+    // where the position passed to the last get falls inside the returned node
+    private int offset;
+
+    /**
+     * Returns the number of positions covered, the number of nodes when every
+     * weight is 1.
+     *
+     * @return the size
+     */
+    public int size() {
+        return size(root);
+    }
+
+    private static int size(Node<?> n) {
+        return (n == null) ? 0 : n.getSize();
+    }
+
+    private static <N extends Node<N>> void update(N n) {
+        n.setSize(size(n.getLeft()) + size(n.getRight()) + n.getWeight());
+    }
+
+    private int nextPriority() {
+        // xorshift, enough randomness for balancing
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return seed;
+    }
+
+    /**
+     * Returns the node covering a position. {@link #offset()} then gives the
+     * position within the node.
+     *
+     * @throws IndexOutOfBoundsException if index is not in [0, size)
+     * @param index the position
+     * @return the node
+     */
+    public N get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("index: " + index);
+        }
+        N t = root;
+        while (true) {
+            int ls = size(t.getLeft());
+            if (index < ls) {
+                t = t.getLeft();
+            } else if (index < ls + t.getWeight()) {
+                offset = index - ls;
+                return t;
+            } else {
+                index -= ls + t.getWeight();
+                t = t.getRight();
+            }
+        }
+    }
+
+    /**
+     * Returns how far into its node the position passed to the last
+     * {@link #get(int)} was.
+     *
+     * @return the offset
+     */
+    int offset() {
+        return offset;
+    }
+
+    /**
+     * Returns the first position covered by an indexed node.
+     *
+     * @param node the node
+     * @return its position
+     */
+    public int rank(N node) {
+        int r = size(node.getLeft());
+        for (N n = node; n.getParent() != null; n = n.getParent()) {
+            if (n == n.getParent().getRight()) {
+                r += size(n.getParent().getLeft()) + n.getParent().getWeight();
+            }
+        }
+        return r;
+    }
+
+    /**
+     * Inserts a node so that it starts at the given position, which must not
+     * fall inside another node.
+     *
+     * @throws IndexOutOfBoundsException if index is not in [0, size]
+     * @param index the position
+     * @param node  a node that is not in any tree, with its weight set
+     */
+    public void insert(int index, N node) {
+        if (index < 0 || index > size()) {
+            throw new IndexOutOfBoundsException("index: " + index);
+        }
+        node.setPriority(nextPriority());
+        node.setSize(node.getWeight());
+
+        // walk down past the nodes that stay above the new one
+        N parent = null;
+        boolean left = false;
+        N t = root;
+        while (t != null && t.getPriority() > node.getPriority()) {
+            t.setSize(t.getSize() + node.getWeight());
+            parent = t;
+            int ls = size(t.getLeft());
+            if (index <= ls) {
+                left = true;
+                t = t.getLeft();
+            } else {
+                left = false;
+                index -= ls + t.getWeight();
+                t = t.getRight();
+            }
+        }
+
+        // the subtree below splits around the new node
+        split(t, index);
+        node.setLeft(splitLeft);
+        node.setRight(splitRight);
+        if (splitLeft != null) {
+            splitLeft.setParent(node);
+        }
+        if (splitRight != null) {
+            splitRight.setParent(node);
+        }
+        splitLeft = splitRight = null;
+        update(node);
+
+        node.setParent(parent);
+        if (parent == null) {
+            root = node;
+        } else if (left) {
+            parent.setLeft(node);
+        } else {
+            parent.setRight(node);
+        }
+    }
+
+    /**
+     * Inserts several nodes, in order, so that the first one starts at the given
+     * position, which must not fall inside another node. The new nodes are built
+     * into a tree of their own in one pass and then joined in with a single
+     * split and two merges.
+     *
+     * @throws IndexOutOfBoundsException if index is not in [0, size]
+     * @param index the position
+     * @param nodes nodes that are not in any tree, with their weights set
+     */
+    public void insertAll(int index, List<N> nodes) {
+        if (index < 0 || index > size()) {
+            throw new IndexOutOfBoundsException("index: " + index);
+        }
+        if (nodes.isEmpty()) {
+            return;
+        }
+
+        // the right spine of the tree built so far, lowest node on top; a node
+        // leaves it once a later node outranks it, and its subtree is then done
+        ArrayDeque<N> spine = new ArrayDeque<>();
+        for (N node : nodes) {
+            node.setPriority(nextPriority());
+            node.setRight(null);
+            N below = null;
+            while (!spine.isEmpty() && spine.peek().getPriority() < node.getPriority()) {
+                below = spine.pop();
+                update(below);
+            }
+            node.setLeft(below);
+            if (below != null) {
+                below.setParent(node);
+            }
+            node.setParent(spine.peek());
+            if (node.getParent() != null) {
+                node.getParent().setRight(node);
+            }
+            spine.push(node);
+        }
+        N built = null;
+        while (!spine.isEmpty()) {
+            built = spine.pop();
+            update(built);
+        }
+
+        split(root, index);
+        N left = splitLeft;
+        N right = splitRight;
+        splitLeft = splitRight = null;
+        root = merge(merge(left, built), right);
+        root.setParent(null);
+    }
+
+    /**
+     * Removes a node from the tree.
+     *
+     * @param node an indexed node
+     */
+    public void remove(N node) {
+        N merged = merge(node.getLeft(), node.getRight());
+        N parent = node.getParent();
+        if (merged != null) {
+            merged.setParent(parent);
+        }
+        if (parent == null) {
+            root = merged;
+        } else if (parent.getLeft() == node) {
+            parent.setLeft(merged);
+        } else {
+            parent.setRight(merged);
+        }
+        for (N p = parent; p != null; p = p.getParent()) {
+            p.setSize(p.getSize() - node.getWeight());
+        }
+        node.setLeft(null);
+        node.setRight(null);
+        node.setParent(null);
+        node.setSize(0);
+    }
+
+    /**
+     * Removes the nodes covering the positions from, inclusive, to to, exclusive,
+     * with two splits and a merge. Neither position may fall inside a node. The
+     * removed nodes keep stale tree links until they are inserted again.
+     *
+     * @throws IndexOutOfBoundsException unless 0 <= from <= to <= size
+     * @param from the first position
+     * @param to   the position after the last one
+     */
+    public void removeRange(int from, int to) {
+        if (from < 0 || from > to || to > size()) {
+            throw new IndexOutOfBoundsException("from: " + from + ", to: " + to);
+        }
+        if (from == to) {
+            return;
+        }
+        split(root, from);
+        N left = splitLeft;
+        split(splitRight, to - from);
+        N right = splitRight;
+        splitLeft = splitRight = null;
+        root = merge(left, right);
+        if (root != null) {
+            root.setParent(null);
+        }
+    }
+
+    /**
+     * Changes the weight of an indexed node.
+     *
+     * @param node   the node
+     * @param weight its new weight
+     */
+    void reweigh(N node, int weight) {
+        int delta = weight - node.getWeight();
+        node.setWeight(weight);
+        for (N n = node; n != null; n = n.getParent()) {
+            n.setSize(n.getSize() + delta);
+        }
+    }
+
+    /**
+     * Removes every node.
+     */
+    public void clear() {
+        root = null;
+    }
+
+    /**
+     * Splits t so that the nodes covering its first k positions end up in
+     * splitLeft and the rest in splitRight. The parents of the two roots are
+     * left for the caller to set.
+     */
+    private void split(N t, int k) {
+        if (t == null) {
+            splitLeft = splitRight = null;
+            return;
+        }
+        int ls = size(t.getLeft());
+        if (k <= ls) {
+            split(t.getLeft(), k);
+            t.setLeft(splitRight);
+            if (splitRight != null) {
+                splitRight.setParent(t);
+            }
+            update(t);
+            splitRight = t;
+        } else {
+            split(t.getRight(), k - ls - t.getWeight());
+            t.setRight(splitLeft);
+            if (splitLeft != null) {
+                splitLeft.setParent(t);
+            }
+            update(t);
+            splitLeft = t;
+        }
+    }
+
+    /**
+     * Joins two trees, every node of a coming before every node of b. The parent
+     * of the returned root is left for the caller to set.
+     */
+    private N merge(N a, N b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        if (a.getPriority() > b.getPriority()) {
+            a.setRight(merge(a.getRight(), b));
+            a.getRight().setParent(a);
+            update(a);
+            return a;
+        }
+        b.setLeft(merge(a, b.getLeft()));
+        b.getLeft().setParent(b);
+        update(b);
+        return b;
+    }
+}
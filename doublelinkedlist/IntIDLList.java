@@ -0,0 +1,374 @@
+package doublelinkedlist;
+
+import java.util.Arrays;
+
+/**
+ * A double-linked list of ints with the operations of {@link IDLList}, kept in
+ * three parallel arrays instead of node objects: slot i holds a value, the slot
+ * of the next element and the slot of the previous one. Removed slots go on a
+ * free list and are reused by later inserts, so a list that stays about the
+ * same size allocates nothing. Each element costs 12 bytes, with no boxing.
+ *
+ * There is no position index, which would cost more than the elements
+ * themselves. A position is reached by walking from the head, the tail or the
+ * last position visited, whichever is closest, so get(index) is O(1) for
+ * sequential access and at the ends and O(n) at worst.
+ */
+public class IntIDLList {
+
+    private static final int NIL = -1;
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] values;
+    private int[] next;
+    private int[] prev;
+    private int head;
+    private int tail;
+    private int size;
+    // free slots are chained through next
+    private int free;
+    // slots below this have been handed out at least once
+    private int used;
+
+    // the last position visited and its slot, or NIL
+    private int cursorIndex;
+    private int cursorSlot;
+
+    /**
+     * Creates an empty list.
+     */
+    public IntIDLList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty list with room for a number of elements before it has to
+     * grow.
+     *
+     * @throws IllegalArgumentException if capacity is negative
+     * @param capacity
+     */
+    public IntIDLList(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must not be negative.");
+        }
+        values = new int[capacity];
+        next = new int[capacity];
+        prev = new int[capacity];
+        head = NIL;
+        tail = NIL;
+        size = 0;
+        free = NIL;
+        used = 0;
+        cursorIndex = NIL;
+        cursorSlot = NIL;
+    }
+
+    /**
+     * Returns a slot holding value, from the free list if it has one.
+     */
+    private int allocate(int value) {
+        int slot;
+        if (free != NIL) {
+            slot = free;
+            free = next[slot];
+        } else {
+            if (used == values.length) {
+                int capacity = Math.max(DEFAULT_CAPACITY, values.length + (values.length >> 1));
+                values = Arrays.copyOf(values, capacity);
+                next = Arrays.copyOf(next, capacity);
+                prev = Arrays.copyOf(prev, capacity);
+            }
+            slot = used++;
+        }
+        values[slot] = value;
+        return slot;
+    }
+
+    /**
+     * Returns the slot of the element at a position that is known to be valid.
+     */
+    private int slot(int index) {
+        // start from whichever known position is closest
+        int from = 0;
+        int slot = head;
+        int distance = index;
+        if (size - 1 - index < distance) {
+            from = size - 1;
+            slot = tail;
+            distance = size - 1 - index;
+        }
+        if (cursorSlot != NIL && Math.abs(index - cursorIndex) < distance) {
+            from = cursorIndex;
+            slot = cursorSlot;
+        }
+        for (; from < index; from++) {
+            slot = next[slot];
+        }
+        for (; from > index; from--) {
+            slot = prev[slot];
+        }
+        cursorIndex = index;
+        cursorSlot = slot;
+        return slot;
+    }
+
+    /**
+     * Links a new element in before the element in slot succ, or at the tail if
+     * succ is NIL, at position index.
+     */
+    private void link(int succ, int index, int elem) {
+        int slot = allocate(elem);
+        int before = (succ == NIL) ? tail : prev[succ];
+        next[slot] = succ;
+        prev[slot] = before;
+        if (before == NIL) {
+            head = slot;
+        } else {
+            next[before] = slot;
+        }
+        if (succ == NIL) {
+            tail = slot;
+        } else {
+            prev[succ] = slot;
+        }
+        size++;
+        if (cursorSlot != NIL && cursorIndex >= index) {
+            cursorIndex++;
+        }
+    }
+
+    /**
+     * Unlinks the element in a slot at position index, frees the slot and returns
+     * the element.
+     */
+    private int unlink(int slot, int index) {
+        int before = prev[slot];
+        int after = next[slot];
+        if (before == NIL) {
+            head = after;
+        } else {
+            next[before] = after;
+        }
+        if (after == NIL) {
+            tail = before;
+        } else {
+            prev[after] = before;
+        }
+        next[slot] = free;
+        free = slot;
+        size--;
+        if (cursorSlot == slot) {
+            cursorSlot = NIL;
+        } else if (cursorSlot != NIL && cursorIndex > index) {
+            cursorIndex--;
+        }
+        return values[slot];
+    }
+
+    /**
+     * Adds an element at the head
+     *
+     * @param elem the element to be added
+     * @return true
+     */
+    public boolean add(int elem) {
+        link(head, 0, elem);
+        return true;
+    }
+
+    /**
+     * Adds an element at position index (counting from wherever head is). It
+     * always returns true.
+     *
+     * @throws IndexOutOfBoundsException
+     * @param index
+     * @param elem
+     * @return true
+     */
+    public boolean add(int index, int elem) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("index: " + index);
+        }
+        link((index == size) ? NIL : slot(index), index, elem);
+        return true;
+    }
+
+    /**
+     * Adds elem as the new last element of the list (i.e. at the tail). It always
+     * returns true.
+     *
+     * @param elem
+     * @return true
+     */
+    public boolean append(int elem) {
+        link(NIL, size, elem);
+        return true;
+    }
+
+    /**
+     * Returns the element at position index from the head.
+     *
+     * @throws IndexOutOfBoundsException
+     * @param index
+     * @return
+     */
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index: " + index);
+        }
+        return values[slot(index)];
+    }
+
+    /**
+     * Returns the element at the head.
+     *
+     * @throws IllegalStateException if the list is empty
+     * @return
+     */
+    public int getHead() {
+        if (head == NIL)
+            throw new IllegalStateException();
+        return values[head];
+    }
+
+    /**
+     * Returns the element at the tail.
+     *
+     * @throws IllegalStateException if the list is empty
+     * @return
+     */
+    public int getLast() {
+        if (tail == NIL)
+            throw new IllegalStateException();
+        return values[tail];
+    }
+
+    /**
+     * Returns the size of the list.
+     *
+     * @return
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes and returns the element at the head
+     *
+     * @throws IllegalStateException if there is no such element.
+     * @return
+     */
+    public int remove() {
+        if (head == NIL) {
+            throw new IllegalStateException();
+        }
+        return unlink(head, 0);
+    }
+
+    /**
+     * Removes and returns the element at the tail.
+     *
+     * @throws IllegalStateException is there is no such element
+     * @return
+     */
+    public int removeLast() {
+        if (tail == NIL) {
+            throw new IllegalStateException();
+        }
+        return unlink(tail, size - 1);
+    }
+
+    /**
+     * Removes and returns the element at the index.
+     *
+     * @throws IllegalStateException if there is no such element.
+     * @param index
+     * @return
+     */
+    public int removeAt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IllegalStateException("index: " + index);
+        }
+        return unlink(slot(index), index);
+    }
+
+    /**
+     * Removes the first occurrence of the element is in the list and returns true.
+     * Returns false if the element is not in the list.
+     *
+     * @param elem
+     * @return
+     */
+    public boolean removeValue(int elem) {
+        int index = 0;
+        for (int slot = head; slot != NIL; slot = next[slot], index++) {
+            if (values[slot] == elem) {
+                unlink(slot, index);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the position of the first occurrence of the element, or -1 if it is
+     * not in the list.
+     *
+     * @param elem
+     * @return
+     */
+    public int indexOf(int elem) {
+        int index = 0;
+        for (int slot = head; slot != NIL; slot = next[slot], index++) {
+            if (values[slot] == elem) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the elements from head to tail.
+     *
+     * @return
+     */
+    public int[] toArray() {
+        int[] array = new int[size];
+        int i = 0;
+        for (int slot = head; slot != NIL; slot = next[slot]) {
+            array[i++] = values[slot];
+        }
+        return array;
+    }
+
+    /**
+     * Rewrites the arrays with the elements in list order and no spare room.
+     * Walking the list then reads memory in order, and the free slots are
+     * given back.
+     */
+    public void trimToSize() {
+        values = toArray();
+        next = new int[size];
+        prev = new int[size];
+        for (int i = 0; i < size; i++) {
+            next[i] = (i + 1 < size) ? i + 1 : NIL;
+            prev[i] = i - 1;
+        }
+        head = (size == 0) ? NIL : 0;
+        tail = size - 1;
+        free = NIL;
+        used = size;
+        cursorSlot = NIL;
+    }
+
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        s.append("[ ");
+        for (int slot = head; slot != NIL; slot = next[slot]) {
+            s.append(values[slot] + ", ");
+        }
+        s.append("]");
+        return s.toString();
+    }
+}
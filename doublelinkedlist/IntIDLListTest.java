@@ -0,0 +1,118 @@
+package doublelinkedlist;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class IntIDLListTest {
+
+    @Test
+    public void testAddAndAppend() {
+        IntIDLList list = new IntIDLList(0);
+        for (int i = 0; i < 10; i++) {
+            list.add(i);
+        }
+        for (int i = 10; i < 20; i++) {
+            list.append(i);
+        }
+
+        assertEquals(20, list.size());
+        assertEquals(9, list.getHead());
+        assertEquals(19, list.getLast());
+        assertEquals("[ 9, 8, 7, 6, 5, 4, 3, 2, 1, 0, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, ]", list.toString());
+
+        list.add(5, 100);
+        assertEquals(100, list.get(5));
+        assertEquals(4, list.get(6));
+
+        try {
+            list.add(50, 0);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            assertEquals(1, 1);
+        }
+        try {
+            list.get(21);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            assertEquals(1, 1);
+        }
+    }
+
+    @Test
+    public void testRemove() {
+        IntIDLList list = new IntIDLList();
+
+        try {
+            list.remove();
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals(1, 1);
+        }
+        assertFalse(list.removeValue(1));
+
+        for (int i = 0; i < 10; i++) {
+            list.append(i);
+        }
+        assertEquals(0, list.remove());
+        assertEquals(9, list.removeLast());
+        assertEquals(5, list.removeAt(4));
+        assertTrue(list.removeValue(7));
+        assertFalse(list.removeValue(7));
+        assertEquals(-1, list.indexOf(7));
+        assertEquals(4, list.indexOf(6));
+        assertEquals("[ 1, 2, 3, 4, 6, 8, ]", list.toString());
+
+        try {
+            list.removeAt(6);
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals(1, 1);
+        }
+    }
+
+    @Test
+    public void testRandomOperations() {
+        Random random = new Random(7);
+        IntIDLList list = new IntIDLList(0);
+        ArrayList<Integer> expected = new ArrayList<>();
+
+        for (int step = 0; step < 20000; step++) {
+            int op = random.nextInt(8);
+            int elem = random.nextInt(100);
+            if (op < 3 || expected.isEmpty()) {
+                int index = random.nextInt(expected.size() + 1);
+                list.add(index, elem);
+                expected.add(index, elem);
+            } else if (op == 3) {
+                int index = random.nextInt(expected.size());
+                assertEquals((int) expected.remove(index), list.removeAt(index));
+            } else if (op == 4) {
+                assertEquals(expected.remove(Integer.valueOf(elem)), list.removeValue(elem));
+            } else if (op == 5) {
+                assertEquals((int) expected.remove(0), list.remove());
+            } else if (op == 6) {
+                // sequential reads go through the cursor
+                int from = random.nextInt(expected.size());
+                for (int i = from; i < Math.min(expected.size(), from + 10); i++) {
+                    assertEquals((int) expected.get(i), list.get(i));
+                }
+            } else {
+                int index = random.nextInt(expected.size());
+                assertEquals((int) expected.get(index), list.get(index));
+            }
+            if (step % 5000 == 0) {
+                list.trimToSize();
+            }
+            assertEquals(expected.size(), list.size());
+        }
+
+        int[] array = list.toArray();
+        assertEquals(expected.size(), array.length);
+        for (int i = 0; i < array.length; i++) {
+            assertEquals((int) expected.get(i), array[i]);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package doublelinkedlist;
+
+import java.util.List;
+
+/**
+ * Positional index over the nodes of a list.
+ *
+ * @param <N> the node type
+ */
+interface NodeIndex<N> {
+
+    /**
+     * Returns the number of indexed nodes.
+     *
+     * @return the size
+     */
+    int size();
+
+    /**
+     * Returns the node at a position.
+     *
+     * @throws IndexOutOfBoundsException if index is not in [0, size)
+     * @param index the position
+     * @return the node
+     */
+    N get(int index);
+
+    /**
+     * Returns the position of an indexed node.
+     *
+     * @param node the node
+     * @return its position
+     */
+    int rank(N node);
+
+    /**
+     * Inserts a node at a position.
+     *
+     * @throws IndexOutOfBoundsException if index is not in [0, size]
+     * @param index the position
+     * @param node  a node that is not indexed
+     */
+    void insert(int index, N node);
+
+    /**
+     * Inserts several nodes, in order, so that the first one ends up at a
+     * position.
+     *
+     * @throws IndexOutOfBoundsException if index is not in [0, size]
+     * @param index the position
+     * @param nodes nodes that are not indexed
+     */
+    void insertAll(int index, List<N> nodes);
+
+    /**
+     * Removes an indexed node.
+     *
+     * @param node the node
+     */
+    void remove(N node);
+
+    /**
+     * Removes the nodes at the positions from, inclusive, to to, exclusive.
+     *
+     * @throws IndexOutOfBoundsException unless 0 <= from <= to <= size
+     * @param from the first position
+     * @param to   the position after the last one
+     */
+    void removeRange(int from, int to);
+
+    /**
+     * Removes every node.
+     */
+    void clear();
+}
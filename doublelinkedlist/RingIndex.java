@@ -0,0 +1,163 @@
+package doublelinkedlist;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Positional index kept as a growable circular buffer of nodes. The first node
+ * can sit anywhere in the array, so adding or removing at either end moves
+ * nothing and is amortized O(1), like get. Changes in the middle shift the
+ * shorter side of the buffer, and finding a node that is not at either end
+ * scans for it, so both are O(n). Inserting or removing a range of k nodes
+ * shifts the buffer once, O(n + k) in all.
+ *
+ * @param <N> the node type
+ */
+class RingIndex<N> implements NodeIndex<N> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    // the capacity is a power of two so that positions wrap with a mask
+    private Object[] ring = new Object[INITIAL_CAPACITY];
+    private int start;
+    private int count;
+
+    public int size() {
+        return count;
+    }
+
+    private int slot(int index) {
+        return (start + index) & (ring.length - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    public N get(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("index: " + index);
+        }
+        return (N) ring[slot(index)];
+    }
+
+    public int rank(N node) {
+        if (count > 0 && ring[slot(count - 1)] == node) {
+            return count - 1;
+        }
+        for (int i = 0; i < count; i++) {
+            if (ring[slot(i)] == node) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Node is not indexed.");
+    }
+
+    public void insert(int index, N node) {
+        if (index < 0 || index > count) {
+            throw new IndexOutOfBoundsException("index: " + index);
+        }
+        if (count == ring.length) {
+            grow();
+        }
+        if (index < count / 2) {
+            // move the front one slot back
+            start = (start - 1) & (ring.length - 1);
+            for (int i = 0; i < index; i++) {
+                ring[slot(i)] = ring[slot(i + 1)];
+            }
+        } else {
+            // move the back one slot forward
+            for (int i = count; i > index; i--) {
+                ring[slot(i)] = ring[slot(i - 1)];
+            }
+        }
+        ring[slot(index)] = node;
+        count++;
+    }
+
+    public void insertAll(int index, List<N> nodes) {
+        if (index < 0 || index > count) {
+            throw new IndexOutOfBoundsException("index: " + index);
+        }
+        int k = nodes.size();
+        while (count + k > ring.length) {
+            grow();
+        }
+        if (index < count / 2) {
+            // move the front k slots back
+            start = (start - k) & (ring.length - 1);
+            for (int i = 0; i < index; i++) {
+                ring[slot(i)] = ring[slot(i + k)];
+            }
+        } else {
+            // move the back k slots forward
+            for (int i = count - 1; i >= index; i--) {
+                ring[slot(i + k)] = ring[slot(i)];
+            }
+        }
+        int i = index;
+        for (N node : nodes) {
+            ring[slot(i++)] = node;
+        }
+        count += k;
+    }
+
+    public void remove(N node) {
+        int index = rank(node);
+        if (index < count / 2) {
+            for (int i = index; i > 0; i--) {
+                ring[slot(i)] = ring[slot(i - 1)];
+            }
+            ring[start] = null;
+            start = (start + 1) & (ring.length - 1);
+        } else {
+            for (int i = index; i < count - 1; i++) {
+                ring[slot(i)] = ring[slot(i + 1)];
+            }
+            ring[slot(count - 1)] = null;
+        }
+        count--;
+    }
+
+    public void removeRange(int from, int to) {
+        if (from < 0 || from > to || to > count) {
+            throw new IndexOutOfBoundsException("from: " + from + ", to: " + to);
+        }
+        int k = to - from;
+        if (from < count - to) {
+            // move the front k slots forward
+            for (int i = from - 1; i >= 0; i--) {
+                ring[slot(i + k)] = ring[slot(i)];
+            }
+            for (int i = 0; i < k; i++) {
+                ring[slot(i)] = null;
+            }
+            start = (start + k) & (ring.length - 1);
+        } else {
+            // move the back k slots back
+            for (int i = to; i < count; i++) {
+                ring[slot(i - k)] = ring[slot(i)];
+            }
+            for (int i = count - k; i < count; i++) {
+                ring[slot(i)] = null;
+            }
+        }
+        count -= k;
+    }
+
+    public void clear() {
+        Arrays.fill(ring, null);
+        start = 0;
+        count = 0;
+    }
+
+    /**
+     * Doubles the capacity, unwrapping the nodes to the start of the new array.
+     */
+    private void grow() {
+        Object[] bigger = new Object[ring.length * 2];
+        int firstPart = Math.min(count, ring.length - start);
+        System.arraycopy(ring, start, bigger, 0, firstPart);
+        System.arraycopy(ring, 0, bigger, firstPart, count - firstPart);
+        ring = bigger;
+        start = 0;
+    }
+}
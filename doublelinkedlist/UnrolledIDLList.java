@@ -0,0 +1,378 @@
+package doublelinkedlist;
+
+import java.util.Arrays;
+
+/**
+ * A double-linked list with the same operations as {@link IDLList} that keeps
+ * its elements in fixed-size array blocks instead of one node each. Blocks are
+ * linked in both directions and indexed by a balanced tree weighted by how many
+ * elements each block holds, so positional access stays O(log n).
+ *
+ * Appending and prepending fill blocks completely and other changes keep them
+ * at least about a quarter full, so with the default block size dozens of
+ * elements share the overhead of one block, and neighbouring elements sit next
+ * to each other in memory. Inserting or removing in the middle of a block
+ * shifts at most a block of references.
+ *
+ * @param <E> the element type
+ */
+public class UnrolledIDLList<E> {
+
+    private static final int DEFAULT_BLOCK_SIZE = 64;
+
+    private static class Block<F> extends IndexTree.Links<Block<F>> {
+
+        // the first weight slots are in use, the rest are null
+        private final Object[] items;
+        private Block<F> next;
+        private Block<F> prev;
+
+        /**
+         * Creates an empty block.
+         *
+         * @param capacity
+         */
+        public Block(int capacity) {
+            items = new Object[capacity];
+            weight = 0;
+        }
+
+        /**
+         * Creates a block holding a single element.
+         *
+         * @param capacity
+         * @param first
+         */
+        public Block(int capacity, F first) {
+            items = new Object[capacity];
+            items[0] = first;
+        }
+
+        @SuppressWarnings("unchecked")
+        private F item(int i) {
+            return (F) items[i];
+        }
+    }
+
+    private Block<E> head;
+    private Block<E> tail;
+    private int size;
+    private final int blockSize;
+    private IndexTree<Block<E>> blocks;
+
+    /**
+     * Creates an empty list with blocks of 64 elements.
+     */
+    public UnrolledIDLList() {
+        this(DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Creates an empty list.
+     *
+     * @throws IllegalArgumentException if blockSize is less than 4
+     * @param blockSize the number of elements a block holds
+     */
+    public UnrolledIDLList(int blockSize) {
+        if (blockSize < 4) {
+            throw new IllegalArgumentException("blockSize must be at least 4.");
+        }
+        this.blockSize = blockSize;
+        head = null;
+        tail = null;
+        size = 0;
+        blocks = new IndexTree<Block<E>>();
+    }
+
+    /**
+     * Links a new block after another one, or at the head if that is null.
+     */
+    private void linkAfter(Block<E> before, Block<E> block) {
+        if (before == null) {
+            blocks.insert(0, block);
+            block.next = head;
+            if (head != null) {
+                head.prev = block;
+            }
+            head = block;
+        } else {
+            blocks.insert(blocks.rank(before) + before.weight, block);
+            block.prev = before;
+            block.next = before.next;
+            if (before.next != null) {
+                before.next.prev = block;
+            }
+            before.next = block;
+        }
+        if (block.next == null) {
+            tail = block;
+        }
+    }
+
+    /**
+     * Unlinks a block from the list and the index.
+     */
+    private void unlink(Block<E> block) {
+        blocks.remove(block);
+        if (block.prev == null) {
+            head = block.next;
+        } else {
+            block.prev.next = block.next;
+        }
+        if (block.next == null) {
+            tail = block.prev;
+        } else {
+            block.next.prev = block.prev;
+        }
+        block.next = null;
+        block.prev = null;
+    }
+
+    /**
+     * Inserts elem so that it ends up at position index.
+     */
+    private void insert(int index, E elem) {
+        if (head == null) {
+            linkAfter(null, new Block<E>(blockSize, elem));
+            size++;
+            return;
+        }
+
+        Block<E> b;
+        int off;
+        if (index == size) {
+            b = tail;
+            off = tail.weight;
+        } else {
+            b = blocks.get(index);
+            off = blocks.offset();
+            if (off == 0 && b.prev != null && b.prev.weight < blockSize) {
+                // the end of the previous block is the same position
+                b = b.prev;
+                off = b.weight;
+            }
+        }
+
+        if (b.weight == blockSize) {
+            if (off == blockSize || off == 0) {
+                // at either end of a full block start a new one, so that
+                // appending and prepending leave full blocks behind
+                linkAfter(off == 0 ? b.prev : b, new Block<E>(blockSize, elem));
+                size++;
+                return;
+            }
+            // split the full block in two halves
+            int half = blockSize / 2;
+            Block<E> upper = new Block<E>(blockSize);
+            System.arraycopy(b.items, half, upper.items, 0, blockSize - half);
+            Arrays.fill(b.items, half, blockSize, null);
+            upper.weight = blockSize - half;
+            blocks.reweigh(b, half);
+            linkAfter(b, upper);
+            if (off > half) {
+                b = upper;
+                off -= half;
+            }
+        }
+
+        System.arraycopy(b.items, off, b.items, off + 1, b.weight - off);
+        b.items[off] = elem;
+        blocks.reweigh(b, b.weight + 1);
+        size++;
+    }
+
+    /**
+     * Removes and returns the element at slot off of block b. Blocks that run low
+     * are merged with a neighbour so that blocks stay at least a quarter full on
+     * average.
+     */
+    private E removeFrom(Block<E> b, int off) {
+        E elem = b.item(off);
+        size--;
+        if (b.weight == 1) {
+            unlink(b);
+            return elem;
+        }
+        System.arraycopy(b.items, off + 1, b.items, off, b.weight - off - 1);
+        b.items[b.weight - 1] = null;
+        blocks.reweigh(b, b.weight - 1);
+
+        if (b.weight < blockSize / 4) {
+            int limit = blockSize * 3 / 4;
+            if (b.next != null && b.weight + b.next.weight <= limit) {
+                moveAll(b.next, b);
+            } else if (b.prev != null && b.prev.weight + b.weight <= limit) {
+                moveAll(b, b.prev);
+            }
+        }
+        return elem;
+    }
+
+    /**
+     * Moves every element of a block to the end of the block before it and
+     * unlinks the emptied block.
+     */
+    private void moveAll(Block<E> from, Block<E> to) {
+        int moved = from.weight;
+        System.arraycopy(from.items, 0, to.items, to.weight, moved);
+        unlink(from);
+        blocks.reweigh(to, to.weight + moved);
+    }
+
+    /**
+     * Adds an element at the head
+     *
+     * @param elem the element to be added
+     * @return true
+     */
+    public boolean add(E elem) {
+        insert(0, elem);
+        return true;
+    }
+
+    /**
+     * Adds an element at position index (counting from wherever head is). It
+     * always returns true.
+     *
+     * @throws IndexOutOfBoundsException
+     * @param index
+     * @param elem
+     * @return true
+     */
+    public boolean add(int index, E elem) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("index: " + index);
+        }
+        insert(index, elem);
+        return true;
+    }
+
+    /**
+     * Adds elem as the new last element of the list (i.e. at the tail). It always
+     * returns true.
+     *
+     * @param elem
+     * @return true
+     */
+    public boolean append(E elem) {
+        insert(size, elem);
+        return true;
+    }
+
+    /**
+     * Returns the object at position index from the head.
+     *
+     * @throws IndexOutOfBoundsException
+     * @param index
+     * @return
+     */
+    public E get(int index) {
+        Block<E> b = blocks.get(index);
+        return b.item(blocks.offset());
+    }
+
+    /**
+     * Returns the object at the head.
+     *
+     * @throws IllegalStateException if the list is empty
+     * @return
+     */
+    public E getHead() {
+        if (head == null)
+            throw new IllegalStateException();
+        return head.item(0);
+    }
+
+    /**
+     * Returns the object at the tail.
+     *
+     * @throws IllegalStateException if the list is empty
+     * @return
+     */
+    public E getLast() {
+        if (tail == null)
+            throw new IllegalStateException();
+        return tail.item(tail.weight - 1);
+    }
+
+    /**
+     * Returns the size of the list.
+     *
+     * @return
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes and returns the element at the head
+     *
+     * @throws IllegalStateException if there is no such element.
+     * @return
+     */
+    public E remove() {
+        if (head == null) {
+            throw new IllegalStateException();
+        }
+        return removeFrom(head, 0);
+    }
+
+    /**
+     * Removes and returns the element at the tail.
+     *
+     * @throws IllegalStateException is there is no such element
+     * @return
+     */
+    public E removeLast() {
+        if (tail == null) {
+            throw new IllegalStateException();
+        }
+        return removeFrom(tail, tail.weight - 1);
+    }
+
+    /**
+     * Removes and returns the element at the index.
+     *
+     * @throws IllegalStateException if there is no such element.
+     * @param index
+     * @return
+     */
+    public E removeAt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IllegalStateException("index: " + index);
+        }
+        Block<E> b = blocks.get(index);
+        return removeFrom(b, blocks.offset());
+    }
+
+    /**
+     * Removes the first occurrence of the element is in the list and returns true.
+     * Returns false if the element is not in the list.
+     *
+     * @param elem
+     * @return
+     */
+    public boolean remove(E elem) {
+        for (Block<E> b = head; b != null; b = b.next) {
+            for (int i = 0; i < b.weight; i++) {
+                if (elem.equals(b.items[i])) {
+                    removeFrom(b, i);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        s.append("[ ");
+        for (Block<E> b = head; b != null; b = b.next) {
+            for (int i = 0; i < b.weight; i++) {
+                s.append(b.items[i].toString() + ", ");
+            }
+        }
+        s.append("]");
+        return s.toString();
+    }
+}
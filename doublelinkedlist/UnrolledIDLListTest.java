@@ -0,0 +1,106 @@
+package doublelinkedlist;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class UnrolledIDLListTest {
+
+    @Test
+    public void testAddAndAppend() {
+        UnrolledIDLList<Integer> list = new UnrolledIDLList<>(4);
+        for (int i = 0; i < 10; i++) {
+            list.add(i);
+        }
+        for (int i = 10; i < 20; i++) {
+            list.append(i);
+        }
+
+        assertEquals(20, list.size());
+        assertTrue(9 == list.getHead());
+        assertTrue(19 == list.getLast());
+        assertEquals("[ 9, 8, 7, 6, 5, 4, 3, 2, 1, 0, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, ]", list.toString());
+
+        list.add(5, 100);
+        assertTrue(100 == list.get(5));
+        assertTrue(4 == list.get(6));
+
+        try {
+            list.add(50, 0);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            assertEquals(1, 1);
+        }
+    }
+
+    @Test
+    public void testRemove() {
+        UnrolledIDLList<Integer> list = new UnrolledIDLList<>(4);
+
+        try {
+            list.remove();
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals(1, 1);
+        }
+        assertFalse(list.remove(Integer.valueOf(1)));
+
+        for (int i = 0; i < 10; i++) {
+            list.append(i);
+        }
+        assertTrue(0 == list.remove());
+        assertTrue(9 == list.removeLast());
+        assertTrue(5 == list.removeAt(4));
+        assertTrue(list.remove(Integer.valueOf(7)));
+        assertFalse(list.remove(Integer.valueOf(7)));
+        assertEquals("[ 1, 2, 3, 4, 6, 8, ]", list.toString());
+
+        try {
+            list.removeAt(6);
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals(1, 1);
+        }
+    }
+
+    @Test
+    public void testRandomOperations() {
+        UnrolledIDLList<Integer> list = new UnrolledIDLList<>(8);
+        ArrayList<Integer> expected = new ArrayList<>();
+        Random random = new Random(284);
+
+        for (int i = 0; i < 20000; i++) {
+            int op = random.nextInt(7);
+            if (op == 0) {
+                list.add(i);
+                expected.add(0, i);
+            } else if (op == 1) {
+                list.append(i);
+                expected.add(i);
+            } else if (op == 2) {
+                int index = random.nextInt(expected.size() + 1);
+                list.add(index, i);
+                expected.add(index, i);
+            } else if (expected.isEmpty()) {
+                continue;
+            } else if (op == 3) {
+                int index = random.nextInt(expected.size());
+                assertEquals(expected.remove(index), list.removeAt(index));
+            } else if (op == 4) {
+                assertEquals(expected.remove(0), list.remove());
+            } else if (op == 5) {
+                assertEquals(expected.remove(expected.size() - 1), list.removeLast());
+            } else {
+                Integer value = expected.get(random.nextInt(expected.size()));
+                assertTrue(list.remove(value));
+                expected.remove(value);
+            }
+            assertEquals(expected.size(), list.size());
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), list.get(i));
+        }
+    }
+}
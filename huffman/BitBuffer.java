@@ -0,0 +1,221 @@
+package huffman;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A growable sequence of bits packed 64 to a long, the first bit in the highest
+ * bit of the first word. Bits are only ever appended, and a {@link Reader} reads
+ * them back in order, so a buffer takes one bit of memory per bit plus the
+ * spare room left by growing.
+ */
+public class BitBuffer {
+
+	private long[] words;
+	/* The number of bits written; every bit past it is 0 */
+	private long length;
+
+	/**
+	 * Creates an empty buffer.
+	 */
+	public BitBuffer() {
+		this(Long.SIZE);
+	}
+
+	/**
+	 * Creates an empty buffer with room for a number of bits before it has to grow.
+	 * @param capacity the number of bits
+	 * @throws IllegalArgumentException if capacity is negative or more than a long[] can hold
+	 */
+	public BitBuffer(long capacity) {
+		if (capacity < 0 || words(capacity) > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("capacity: " + capacity);
+		words = new long[(int) words(capacity)];
+	}
+
+	/**
+	 * Returns a buffer holding the given bits.
+	 * @param bits the bits, first bit first
+	 * @throws IllegalArgumentException if bits is null
+	 * @return the buffer
+	 */
+	public static BitBuffer of(Boolean[] bits) {
+		if (bits == null) throw new IllegalArgumentException();
+		BitBuffer buffer = new BitBuffer(bits.length);
+		for (Boolean bit : bits)
+			buffer.write(bit);
+		return buffer;
+	}
+
+	/** The number of longs needed for a number of bits */
+	private static long words(long bits) {
+		return (bits + Long.SIZE - 1) >>> 6;
+	}
+
+	/**
+	 * Makes room for at least a number of bits, growing by half at a time.
+	 * @param bits
+	 */
+	private void ensureCapacity(long bits) {
+		long needed = words(bits);
+		if (needed <= words.length)
+			return;
+		if (needed > Integer.MAX_VALUE - 8)
+			throw new IllegalStateException("BitBuffer is full at " + length + " bits");
+		long grown = Math.min(Integer.MAX_VALUE - 8, words.length + (words.length >> 1) + 1L);
+		words = Arrays.copyOf(words, (int) Math.max(needed, grown));
+	}
+
+	/**
+	 * Returns the number of bits written.
+	 * @return the length
+	 */
+	public long length() {
+		return length;
+	}
+
+	/**
+	 * Returns the bit at a position.
+	 * @param index the position
+	 * @throws IndexOutOfBoundsException if index is not in [0, length)
+	 * @return the bit
+	 */
+	public boolean get(long index) {
+		if (index < 0 || index >= length)
+			throw new IndexOutOfBoundsException("index: " + index);
+		return (words[(int) (index >>> 6)] << (index & 63)) < 0;
+	}
+
+	/**
+	 * Appends one bit.
+	 * @param bit
+	 */
+	public void write(boolean bit) {
+		write(bit ? 1 : 0, 1);
+	}
+
+	/**
+	 * Appends the low count bits of bits, highest first. At most two words are
+	 * touched, however many bits are written.
+	 * @param bits the bits, right-aligned
+	 * @param count how many of them, 0 to 64
+	 * @throws IllegalArgumentException if count is not in [0, 64]
+	 */
+	public void write(long bits, int count) {
+		if (count < 0 || count > Long.SIZE)
+			throw new IllegalArgumentException("count: " + count);
+		if (count == 0)
+			return;
+		ensureCapacity(length + count);
+
+		if (count < Long.SIZE)
+			bits &= (1L << count) - 1;
+		int word = (int) (length >>> 6);
+		int free = Long.SIZE - (int) (length & 63);
+		if (count <= free) {
+			words[word] |= bits << (free - count);
+		} else {
+			// split across two words
+			words[word] |= bits >>> (count - free);
+			words[word + 1] |= bits << (Long.SIZE - (count - free));
+		}
+		length += count;
+	}
+
+	/**
+	 * Returns a reader positioned at the first bit.
+	 * @return the reader
+	 */
+	public Reader reader() {
+		return new Reader();
+	}
+
+	/**
+	 * Returns the bits as a boolean array.
+	 * @throws IllegalStateException if there are too many bits for an array
+	 * @return the bits
+	 */
+	public Boolean[] toBooleans() {
+		if (length > Integer.MAX_VALUE - 8)
+			throw new IllegalStateException("Too many bits for an array: " + length);
+		Boolean[] bits = new Boolean[(int) length];
+		for (int i = 0; i < bits.length; i++)
+			bits[i] = get(i);
+		return bits;
+	}
+
+	/**
+	 * Returns the bits as a string of 0s and 1s.
+	 */
+	public String toString() {
+		StringBuilder b = new StringBuilder();
+		for (long i = 0; i < length; i++)
+			b.append(get(i) ? '1' : '0');
+		return b.toString();
+	}
+
+	/**
+	 * Reads the bits of the buffer in order. Bits written after the reader was
+	 * created are read too.
+	 */
+	public class Reader {
+
+		private long position;
+
+		/**
+		 * Returns true if there are bits left to read.
+		 * @return
+		 */
+		public boolean hasNext() {
+			return position < length;
+		}
+
+		/**
+		 * Returns the number of bits read so far.
+		 * @return
+		 */
+		public long position() {
+			return position;
+		}
+
+		/**
+		 * Reads the next bit.
+		 * @throws NoSuchElementException if every bit has been read
+		 * @return the bit
+		 */
+		public boolean read() {
+			if (position >= length)
+				throw new NoSuchElementException();
+			boolean bit = (words[(int) (position >>> 6)] << (position & 63)) < 0;
+			position++;
+			return bit;
+		}
+
+		/**
+		 * Reads the next count bits and returns them right-aligned, the first one
+		 * highest.
+		 * @param count how many bits, 0 to 64
+		 * @throws IllegalArgumentException if count is not in [0, 64]
+		 * @throws NoSuchElementException if fewer than count bits are left
+		 * @return the bits
+		 */
+		public long read(int count) {
+			if (count < 0 || count > Long.SIZE)
+				throw new IllegalArgumentException("count: " + count);
+			if (count == 0)
+				return 0;
+			if (length - position < count)
+				throw new NoSuchElementException();
+
+			int word = (int) (position >>> 6);
+			int used = (int) (position & 63);
+			long bits = words[word] << used;
+			if (used + count > Long.SIZE) {
+				// the rest is in the next word
+				bits |= words[word + 1] >>> (Long.SIZE - used);
+			}
+			position += count;
+			return bits >>> (Long.SIZE - count);
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package huffman;
+
+import java.util.ArrayList;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class BitBufferTest {
+
+    @Test
+    public void testWriteAndGet() {
+        BitBuffer b = new BitBuffer(0);
+        b.write(true);
+        b.write(false);
+        b.write(0b1101, 4);
+        b.write(-1L, 64);
+        b.write(0, 0);
+
+        assertEquals(70, b.length());
+        assertEquals("101101" + "1".repeat(64), b.toString());
+        assertTrue(b.get(0));
+        assertFalse(b.get(1));
+        assertTrue(b.get(69));
+
+        try {
+            b.get(70);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            assertTrue(true);
+        }
+        try {
+            b.write(0, 65);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testBooleans() {
+        Boolean[] bits = new Boolean[] { true, false, false, true, true };
+        BitBuffer b = BitBuffer.of(bits);
+        assertEquals("10011", b.toString());
+        assertArrayEquals(bits, b.toBooleans());
+    }
+
+    @Test
+    public void testReader() {
+        Random random = new Random(6);
+        BitBuffer b = new BitBuffer();
+        ArrayList<long[]> written = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            int count = random.nextInt(65);
+            long bits = random.nextLong();
+            b.write(bits, count);
+            written.add(new long[] { (count == 64) ? bits : bits & ((1L << count) - 1), count });
+        }
+
+        BitBuffer.Reader r = b.reader();
+        for (long[] w : written) {
+            assertEquals(w[0], r.read((int) w[1]));
+        }
+        assertFalse(r.hasNext());
+        assertEquals(b.length(), r.position());
+
+        r = b.reader();
+        for (long i = 0; i < b.length(); i++) {
+            assertEquals(b.get(i), r.read());
+        }
+        try {
+            r.read();
+            fail();
+        } catch (NoSuchElementException e) {
+            assertTrue(true);
+        }
+    }
+}
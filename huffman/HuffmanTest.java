@@ -93,6 +93,54 @@ public class HuffmanTest {
         }
     }
 
+    @Test
+    public void testEncodeBits() {
+        assertEquals("1110011100111101101", h.encodeBits("AJCDH").toString());
+        assertEquals(h.bitsToString(h.encode(s)), h.encodeBits(s).toString());
+        assertTrue(s.equals(h.decode(h.encodeBits(s))));
+        assertTrue("AJCDH".equals(h.decode(BitBuffer.of(h.encode("AJCDH")))));
+        assertTrue("".equals(h.decode(new BitBuffer())));
+
+        try {
+            h.encodeBits("AZ");
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+        try {
+            h.decode(BitBuffer.of(new Boolean[] { false, true, true, true, false, true }));
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testCanonicalCodes() {
+        byte[] lengths = h.codeLengths();
+        assertEquals(2, lengths['I']);
+        assertEquals(3, lengths['A']);
+        assertEquals(5, lengths['B']);
+        assertEquals(-1, lengths['Z']);
+
+        long[] codes = h.canonicalCodes();
+        assertEquals(0b00, codes['I']);
+        assertEquals(0b010, codes['A']);
+        assertEquals(0b011, codes['C']);
+        assertEquals(0b100, codes['E']);
+        assertEquals(0b101, codes['G']);
+        assertEquals(0b110, codes['J']);
+        assertEquals(0b11100, codes['B']);
+        assertEquals(0b11101, codes['D']);
+        assertEquals(0b11110, codes['F']);
+        assertEquals(0b11111, codes['H']);
+
+        // every code has the same length as the one encode uses
+        for (char c = 'A'; c <= 'J'; c++) {
+            assertEquals(lengths[c], h.encode(String.valueOf(c)).length);
+        }
+    }
+
     @Test
     public void testToString() {
         String tree = "(freq= 40)\n (freq= 18)\n  (freq= 8)\n   [value= G,freq= 3]\n   [value= J,freq= 5]\n  (freq= 10)\n   [value= E,freq= 5]\n   (freq= 5)\n    (freq= 2)\n     [value= B,freq= 1]\n     [value= H,freq= 1]\n    (freq= 3)\n     [value= F,freq= 1]\n     [value= D,freq= 2]\n (freq= 22)\n  [value= I,freq= 10]\n  (freq= 12)\n   [value= C,freq= 6]\n   [value= A,freq= 6]\n";
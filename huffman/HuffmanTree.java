@@ -85,8 +85,21 @@ public class HuffmanTree {
 	/* Data Fields for Huffman Tree */
 	private Node root;
 
+	/*
+	 * Code table built from the tree once, indexed by symbol: the code of c is the
+	 * low length[c] bits of code[c], first bit highest, and length[c] is -1 if c
+	 * is not in the tree. Codes fit in a long, since a tree over int frequencies
+	 * is less than 46 levels deep.
+	 */
+	private long[] code;
+	private byte[] length;
+
 	public HuffmanTree(String s) {
 		root = buildHuffmanTree(s);
+		code = new long[codex_size];
+		length = new byte[codex_size];
+		Arrays.fill(length, (byte) -1);
+		buildCodes(root, 0L, 0);
 	}
 
 	/**
@@ -211,13 +224,26 @@ public class HuffmanTree {
 	 */
 	public String decode(Boolean[] coding) {
 		if (coding == null) throw new IllegalArgumentException();
+		return decode(BitBuffer.of(coding));
+	}
+
+	/**
+	 * Decodes a huffman encoding held in a bit buffer and returns its string representation
+	 * @param coding
+	 * @throws IllegalArgumentException if the encoding is invalid
+	 * @return
+	 */
+	public String decode(BitBuffer coding) {
+		if (coding == null) throw new IllegalArgumentException();
 
 		Node curr = root;
 		StringBuilder b = new StringBuilder();
+		BitBuffer.Reader reader = coding.reader();
 
-		for (Boolean code : coding) {
+		while (reader.hasNext()) {
+			boolean bit = reader.read();
 			if (curr instanceof InternalNode)
-				if (code) // go right
+				if (bit) // go right
 					curr = ((InternalNode) curr).right;
 				else // go left
 					curr = ((InternalNode) curr).left;
@@ -235,24 +261,68 @@ public class HuffmanTree {
 	}
 
 	/**
-	 * The internal search method for seaerching for a character in the Huffman tree  
+	 * Fills the code table with the path to every leaf below curr.
 	 * @param curr the current node
-	 * @param path the path to the character that is built as the character is searched for
-	 * @param c the caracter to search for
-	 * @return true if the character is in the tree, false otherwise
+	 * @param path the bits from the root to curr
+	 * @param depth the number of bits in path
 	 */
-	private boolean dfs(Node curr, List<Boolean> path, Character c) {
+	private void buildCodes(Node curr, long path, int depth) {
 		if (curr instanceof LeafNode) {
-			return (((LeafNode) curr).data == c) ? true : false;
-		} else if (dfs(((InternalNode) curr).left, path, c)) {
-			path.add(0, false);
-			return true;
-		} else if (dfs(((InternalNode) curr).right, path, c)) {
-			path.add(0, true);
-			return true;
+			code[((LeafNode) curr).data] = path;
+			length[((LeafNode) curr).data] = (byte) depth;
 		} else {
-			return false;
+			buildCodes(((InternalNode) curr).left, path << 1, depth + 1);
+			buildCodes(((InternalNode) curr).right, (path << 1) | 1, depth + 1);
+		}
+	}
+
+	/**
+	 * Returns the number of bits in the code of c, or -1 if c is not in the tree.
+	 * @param c the character
+	 * @return the code length
+	 */
+	private int codeLength(char c) {
+		return (c < codex_size) ? length[c] : -1;
+	}
+
+	/**
+	 * Returns the number of bits a string encodes to.
+	 * @param inputText the string to encode
+	 * @throws IllegalArgumentException if the string cannot be encoded
+	 * @return the number of bits
+	 */
+	private long encodedLength(String inputText) {
+		long bits = 0;
+		for (int i = 0; i < inputText.length(); i++) {
+			int len = codeLength(inputText.charAt(i));
+			if (len < 0) // character not in tree
+				throw new IllegalArgumentException();
+			bits += len;
+		}
+		return bits;
+	}
+
+	/**
+	 * Encodes a string through the code table: one lookup per character to size
+	 * the output and one to fill it.
+	 * @param inputText the string to encode
+	 * @throws IllegalArgumentException if the string cannot be encoded
+	 * @return the boolean array representing the encoded string
+	 */
+	private Boolean[] encodeWithTable(String inputText) {
+		long bits = encodedLength(inputText);
+		if (bits > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("Encoding is too long for an array: " + bits + " bits");
+
+		Boolean[] encoding = new Boolean[(int) bits];
+		int n = 0;
+		for (int i = 0; i < inputText.length(); i++) {
+			char c = inputText.charAt(i);
+			long cCode = code[c];
+			for (int bit = length[c] - 1; bit >= 0; bit--)
+				encoding[n++] = ((cCode >>> bit) & 1) != 0;
 		}
+		return encoding;
 	}
 
 	/**
@@ -262,39 +332,69 @@ public class HuffmanTree {
 	 * @return the boolean array representing the encoded string
 	 */
 	public Boolean[] encode(String inputText) {
-		List<Boolean> encoding = new ArrayList<>();
-
-		for (Character c : inputText.toCharArray()) {
-			List<Boolean> temp = new ArrayList<>();
-			if (!dfs(root, temp, c)) // character not in tree
-				throw new IllegalArgumentException();
-			encoding.addAll(temp);
-		}
-		return (Boolean[]) encoding.toArray(new Boolean[encoding.size()]);
+		return encodeWithTable(inputText);
 	}
 
 	/**
 	 * Encodes a given string into a boolean array based on the current huffman tree efficiently.
+	 * The codes are looked up in a table built with the tree, so there are no tree walks or hashing.
 	 * @param inputText the string to encode
 	 * @throws IllegalArgumentException if the string cannot be encoded
 	 * @return the boolean array representing the encoded string
 	 */
 	public Boolean[] efficientEncode(String inputText) {
-		Map<Character, List<Boolean>> h = new HashMap<>();
-		List<Boolean> encoding = new ArrayList<>();
-
-		for (Character c : inputText.toCharArray()) {
-			if (h.containsKey(c)) {
-				encoding.addAll(h.get(c));
-			} else {
-				List<Boolean> path = new ArrayList<>();
-				if (!dfs(root, path, c)) // character not in tree
-					throw new IllegalArgumentException();
-				h.put(c, path);
-				encoding.addAll(path);
+		return encodeWithTable(inputText);
+	}
+
+	/**
+	 * Encodes a given string into a bit buffer based on the current huffman tree.
+	 * Each code is appended to the buffer whole, and the buffer takes one bit of
+	 * memory per encoded bit, where a Boolean[] takes a reference per bit.
+	 * @param inputText the string to encode
+	 * @throws IllegalArgumentException if the string cannot be encoded
+	 * @return the bit buffer holding the encoded string
+	 */
+	public BitBuffer encodeBits(String inputText) {
+		BitBuffer encoding = new BitBuffer(encodedLength(inputText));
+		for (int i = 0; i < inputText.length(); i++) {
+			char c = inputText.charAt(i);
+			encoding.write(code[c], length[c]);
+		}
+		return encoding;
+	}
+
+	/**
+	 * Returns the code length of every character, indexed by character, with -1
+	 * for the characters that are not in the tree.
+	 * @return the code lengths
+	 */
+	public byte[] codeLengths() {
+		return length.clone();
+	}
+
+	/**
+	 * Returns the canonical Huffman codes for the code lengths of this tree,
+	 * indexed by character. Characters are ordered by code length and then by
+	 * value, and each one gets the next code of its length, as in the low bits of
+	 * the entry. These codes are as short as the tree's own, but a decoder can
+	 * rebuild them from {@link #codeLengths()} alone, so the tree never has to be
+	 * stored. Characters that are not in the tree get 0.
+	 * @return the canonical codes
+	 */
+	public long[] canonicalCodes() {
+		long[] canonical = new long[codex_size];
+		long next = 0;
+		int prevLength = 0;
+		for (int len = 0; len <= Long.SIZE; len++) {
+			for (int c = 0; c < codex_size; c++) {
+				if (length[c] != len)
+					continue;
+				next <<= len - prevLength;
+				prevLength = len;
+				canonical[c] = next++;
 			}
 		}
-		return (Boolean[]) encoding.toArray(new Boolean[encoding.size()]);
+		return canonical;
 	}
 
 	public static void main(String[] args) {
@@ -0,0 +1,62 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import binary.BinaryNumber;
+
+/**
+ * Adds, ands and multiplies binary numbers with one digit per key, the low bit
+ * of the key.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinaryNumberBenchmarks {
+
+    @Param({ "1000", "10000", "100000" })
+    public int size;
+
+    @Param({ "RANDOM", "SORTED", "REVERSED", "FEW_UNIQUE" })
+    public Distribution distribution;
+
+    private BinaryNumber number;
+
+    @Setup
+    public void setup() {
+        int[] keys = distribution.keys(size, 0x5EEDL + size);
+        char[] digits = new char[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            digits[i] = ((keys[i] & 1) == 0) ? '0' : '1';
+        }
+        number = BinaryNumber.parseBinary(digits);
+    }
+
+    @Benchmark
+    public long addAnd() {
+        BinaryNumber sum = new BinaryNumber(size);
+        for (int i = 0; i < 32; i++) {
+            sum.add(number);
+        }
+        return sum.and(number).bitCount();
+    }
+
+    @Benchmark
+    public BinaryNumber multiply() {
+        return number.multiply(number);
+    }
+}
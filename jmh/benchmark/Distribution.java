@@ -0,0 +1,38 @@
+package benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * How the keys of a benchmark input are arranged. Keys are never negative, so
+ * the tables in the notes can take them modulo their size as a bucket index.
+ */
+public enum Distribution {
+    RANDOM, SORTED, REVERSED, FEW_UNIQUE;
+
+    /**
+     * Generates the keys for an input.
+     *
+     * @param size the number of keys
+     * @param seed the random seed, so runs are repeatable
+     * @return the keys
+     */
+    public int[] keys(int size, long seed) {
+        Random random = new Random(seed);
+        int[] keys = new int[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = (this == FEW_UNIQUE) ? random.nextInt(16) : random.nextInt(Integer.MAX_VALUE);
+        }
+        if (this == SORTED || this == REVERSED) {
+            Arrays.sort(keys);
+        }
+        if (this == REVERSED) {
+            for (int i = 0, j = size - 1; i < j; i++, j--) {
+                int t = keys[i];
+                keys[i] = keys[j];
+                keys[j] = t;
+            }
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,79 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import huffman.BitBuffer;
+import huffman.HuffmanTree;
+
+/**
+ * Builds Huffman trees and encodes and decodes a text of one letter per key.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HuffmanBenchmarks {
+
+    @Param({ "1000", "10000", "100000" })
+    public int size;
+
+    @Param({ "RANDOM", "SORTED", "REVERSED", "FEW_UNIQUE" })
+    public Distribution distribution;
+
+    private String text;
+    private HuffmanTree tree;
+    private Boolean[] encoded;
+    private BitBuffer bits;
+
+    @Setup
+    public void setup() {
+        int[] keys = distribution.keys(size, 0x5EEDL + size);
+        char[] letters = new char[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            letters[i] = (char) ('a' + Math.floorMod(keys[i], 26));
+        }
+        text = new String(letters);
+        tree = new HuffmanTree(text);
+        encoded = tree.efficientEncode(text);
+        bits = tree.encodeBits(text);
+    }
+
+    @Benchmark
+    public HuffmanTree build() {
+        return new HuffmanTree(text);
+    }
+
+    @Benchmark
+    public Boolean[] efficientEncode() {
+        return tree.efficientEncode(text);
+    }
+
+    @Benchmark
+    public BitBuffer encodeBits() {
+        return tree.encodeBits(text);
+    }
+
+    @Benchmark
+    public String decodeBooleans() {
+        return tree.decode(encoded);
+    }
+
+    @Benchmark
+    public String decodeBits() {
+        return tree.decode(bits);
+    }
+}
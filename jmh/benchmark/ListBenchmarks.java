@@ -0,0 +1,90 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import doublelinkedlist.IDLList;
+import notes.lists.MyList;
+import notes.lists.SLL;
+
+/**
+ * Builds and reads IDLList, SLL and MyList. One operation feeds every key
+ * through the list.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListBenchmarks {
+
+    @Param({ "1000", "10000", "100000" })
+    public int size;
+
+    @Param({ "RANDOM", "SORTED", "REVERSED", "FEW_UNIQUE" })
+    public Distribution distribution;
+
+    private int[] keys;
+
+    @Setup
+    public void setup() {
+        keys = distribution.keys(size, 0x5EEDL + size);
+    }
+
+    @Benchmark
+    public void idlListAppendGet(Blackhole bh) {
+        IDLList<Integer> list = new IDLList<>();
+        for (int k : keys) {
+            list.append(k);
+        }
+        for (int k : keys) {
+            bh.consume(list.get(Math.floorMod(k, keys.length)));
+        }
+    }
+
+    @Benchmark
+    public void idlListAddRemove(Blackhole bh) {
+        IDLList<Integer> list = new IDLList<>();
+        for (int k : keys) {
+            list.add(k);
+        }
+        while (list.size() > 0) {
+            bh.consume(list.remove());
+        }
+    }
+
+    @Benchmark
+    public void sllAddLastRemoveFirst(Blackhole bh) {
+        SLL<Integer> list = new SLL<>();
+        for (int k : keys) {
+            list.addLast(k);
+        }
+        while (list.size() > 0) {
+            bh.consume(list.removeFirst());
+        }
+    }
+
+    @Benchmark
+    public void myListAddGet(Blackhole bh) {
+        MyList<Integer> list = new MyList<>();
+        for (int k : keys) {
+            list.add(k);
+        }
+        for (int k : keys) {
+            bh.consume(list.get(Math.floorMod(k, keys.length)));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import notes.lists.MyList;
+import notes.lists.SLL;
+import notes.sorts.InsertionSort;
+import notes.sorts.QuickSort;
+
+/**
+ * The operations that are quadratic over a whole input: SLL.get, MyList.find
+ * and insertion sort, plus quick sort, which prints the array on every
+ * partition. They only run on the two smaller sizes, and what quick sort
+ * prints is thrown away.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuadraticBenchmarks {
+
+    @Param({ "1000", "10000" })
+    public int size;
+
+    @Param({ "RANDOM", "SORTED", "REVERSED", "FEW_UNIQUE" })
+    public Distribution distribution;
+
+    private int[] keys;
+    private PrintStream out;
+
+    @Setup
+    public void setup() {
+        keys = distribution.keys(size, 0x5EEDL + size);
+        out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(out);
+    }
+
+    @Benchmark
+    public void sllGet(Blackhole bh) {
+        SLL<Integer> list = new SLL<>();
+        for (int k : keys) {
+            list.addFirst(k);
+        }
+        for (int k : keys) {
+            bh.consume(list.get(Math.floorMod(k, keys.length)));
+        }
+    }
+
+    @Benchmark
+    public void myListFind(Blackhole bh) {
+        MyList<Integer> list = new MyList<>();
+        for (int k : keys) {
+            list.add(k);
+        }
+        for (int k : keys) {
+            bh.consume(list.find(k));
+        }
+    }
+
+    @Benchmark
+    public int[] insertionSort() {
+        int[] copy = keys.clone();
+        InsertionSort.sort(copy);
+        return copy;
+    }
+
+    @Benchmark
+    public int[] quickSort() {
+        int[] copy = keys.clone();
+        QuickSort.sort(copy);
+        return copy;
+    }
+}
@@ -0,0 +1,98 @@
+package benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import notes.tables.HashtableBST;
+import notes.tables.HashtableOpen;
+import notes.tables.Map;
+
+/**
+ * Fills HashtableOpen, HashtableBST and Map with every key and then looks
+ * every key up. Map prints every bucket index it adds to, so System.out is
+ * sent to a null stream while the benchmark runs.
+ *
+ * As the notes stand, two of the benchmarks are expected to fail. HashtableBST
+ * divides by its empty table's size on the first put, so hashtableBSTPutGet
+ * fails for every size and distribution. HashtableOpen throws a
+ * NullPointerException on its first rehash, so hashtableOpenPutGet fails
+ * everywhere except FEW_UNIQUE at 1000, the only input that stays under the
+ * load factor. mapAddGet runs everywhere.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TableBenchmarks {
+
+    @Param({ "1000", "10000", "100000" })
+    public int size;
+
+    @Param({ "RANDOM", "SORTED", "REVERSED", "FEW_UNIQUE" })
+    public Distribution distribution;
+
+    private int[] keys;
+    private PrintStream out;
+
+    @Setup
+    public void setup() {
+        keys = distribution.keys(size, 0x5EEDL + size);
+        out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(out);
+    }
+
+    @Benchmark
+    public void hashtableOpenPutGet(Blackhole bh) {
+        HashtableOpen<Integer, Integer> table = new HashtableOpen<>();
+        for (int k : keys) {
+            table.put(k, k);
+        }
+        for (int k : keys) {
+            bh.consume(table.get(k));
+        }
+    }
+
+    @Benchmark
+    public void hashtableBSTPutGet(Blackhole bh) {
+        HashtableBST<Integer, Integer> table = new HashtableBST<>();
+        for (int k : keys) {
+            table.put(k, k);
+        }
+        for (int k : keys) {
+            bh.consume(table.get(k));
+        }
+    }
+
+    @Benchmark
+    public void mapAddGet(Blackhole bh) {
+        Map<Integer, Integer> map = new Map<>();
+        for (int k : keys) {
+            map.add(k, k);
+        }
+        for (int k : keys) {
+            bh.consume(map.get(k));
+        }
+    }
+}
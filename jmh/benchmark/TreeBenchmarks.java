@@ -0,0 +1,101 @@
+package benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import notes.heaps.Heap;
+import notes.sorts.HeapSort;
+import notes.trees.BST;
+import treaps.Treap;
+
+/**
+ * Builds and searches Treap, BST and Heap, and sorts with HeapSort. One
+ * operation feeds every key through the structure. Sorted keys turn the BST
+ * into a list, which is the point of running them.
+ *
+ * BST rejects a key it already holds, so bstAddFind adds each distinct key once
+ * (only 16 of them for FEW_UNIQUE). Heap.remove fails on the last element, so
+ * heapAddRemove drains the heap down to one element and reads that with top().
+ *
+ * BST.add recurses once per level, so bstAddFind is expected to fail with a
+ * StackOverflowError for SORTED and REVERSED at 100000, where the tree is a
+ * list 100000 deep. Everything else runs for every size and distribution.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TreeBenchmarks {
+
+    @Param({ "1000", "10000", "100000" })
+    public int size;
+
+    @Param({ "RANDOM", "SORTED", "REVERSED", "FEW_UNIQUE" })
+    public Distribution distribution;
+
+    private int[] keys;
+    // keys without repeats, in order of first appearance
+    private int[] distinct;
+
+    @Setup
+    public void setup() {
+        keys = distribution.keys(size, 0x5EEDL + size);
+        distinct = Arrays.stream(keys).distinct().toArray();
+    }
+
+    @Benchmark
+    public void treapAddFind(Blackhole bh) {
+        Treap<Integer> treap = new Treap<>(42);
+        for (int k : keys) {
+            treap.add(k);
+        }
+        for (int k : keys) {
+            bh.consume(treap.find(k));
+        }
+    }
+
+    @Benchmark
+    public void bstAddFind(Blackhole bh) {
+        BST<Integer> tree = new BST<>();
+        for (int k : distinct) {
+            tree.add(k);
+        }
+        for (int k : keys) {
+            bh.consume(tree.find(k));
+        }
+    }
+
+    @Benchmark
+    public void heapAddRemove(Blackhole bh) {
+        Heap<Integer> heap = new Heap<>(keys.length);
+        for (int k : keys) {
+            heap.add(k);
+        }
+        for (int i = 1; i < keys.length; i++) {
+            bh.consume(heap.remove());
+        }
+        bh.consume(heap.top());
+    }
+
+    @Benchmark
+    public int[] heapSort() {
+        int[] copy = keys.clone();
+        HeapSort.sort(copy);
+        return copy;
+    }
+}
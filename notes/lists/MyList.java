@@ -12,7 +12,7 @@ public class MyList<E> {
     private int free;
 
     // Constructor
-    MyList() {
+    public MyList() {
         data = (E[]) new Object[INITIAL_CAPACITY];
         free = 0;
     }
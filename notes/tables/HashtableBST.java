@@ -31,7 +31,7 @@ public class HashtableBST<K extends Comparable<K>, V> {
         }
     }
 
-    HashtableBST() {
+    public HashtableBST() {
         table = new ArrayList<>(START_CAPACITY);
     }
 
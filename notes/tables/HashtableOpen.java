@@ -44,7 +44,7 @@ public class HashtableOpen<K, V> {
 		}
 	}
 
-	HashtableOpen() {
+	public HashtableOpen() {
 		table = new Entry[START_CAPACITY];
 	}
 